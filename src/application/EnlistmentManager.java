@@ -8,6 +8,9 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import handler.FileManager;
+import handler.OfferingIndex;
+import model.ConflictAnalyzer;
 import model.Course;
 import model.CoursePlanner;
 import model.ProgramLevel;
@@ -17,6 +20,7 @@ public class EnlistmentManager {
     private CoursePlanner planner;
     private TableView<Course> offeringsTable; 
     private ObservableList<Course> enrolledCourses;
+    private Label conflictsLabel;
     private StudentDashboard dashboard;
     private List<Course> enrolledList;
     
@@ -58,7 +62,12 @@ public class EnlistmentManager {
         addButton.setOnAction(e -> addSelectedCourse());
         removeButton.setOnAction(e -> removeSelectedCourse());
 
-        content.getChildren().addAll(new Label("Enrolled Courses:"), enrolledTable, buttonBox);
+        // Lists overlapping sections, e.g. in a schedule saved before the registrar moved a section
+        conflictsLabel = new Label();
+        conflictsLabel.setWrapText(true);
+        conflictsLabel.setStyle("-fx-text-fill: #B00020;");
+
+        content.getChildren().addAll(new Label("Enrolled Courses:"), enrolledTable, conflictsLabel, buttonBox);
         VBox.setVgrow(enrolledTable, Priority.ALWAYS);
 
         refreshEnrolledTable();
@@ -83,16 +92,22 @@ public class EnlistmentManager {
             }
 
             // Conflict check
-            if (planner.hasConflict(selected)) {
+            if (planner.hasConflict(selected, FileManager.getCatalogCache().getConflictMatrix())) {
                 Alert alert = new Alert(Alert.AlertType.WARNING);
                 alert.setTitle("Conflict");
                 alert.setHeaderText(null);
-                alert.setContentText("This course conflicts with your existing schedule!");
+                StringBuilder message = new StringBuilder("This course conflicts with your existing schedule:");
+                for (Course clash : ConflictAnalyzer.conflictsWith(enrolledList, selected)) {
+                    message.append("\n").append(clash.getCourseCode()).append(" ").append(clash.getSection())
+                            .append(" (").append(clash.getTimes()).append(" ").append(clash.getDays()).append(")");
+                }
+                alert.setContentText(message.toString());
                 alert.showAndWait();
                 return;
             }
 
             // Check for section matching between lecture and lab
+            OfferingIndex index = FileManager.getCatalogCache().getOfferingIndex();
             boolean hasLecture = false;
             boolean hasLab = false;
             String existingSection = null;
@@ -104,7 +119,7 @@ public class EnlistmentManager {
                         existingSection = c.getSection();
                     } else if (StudentDashboard.isLab(c.getSection())) {
                         hasLab = true;
-                        existingSection = c.getSection().split("-")[0];
+                        existingSection = index.getLectureSection(c);
                     }
                 }
             }
@@ -130,12 +145,17 @@ public class EnlistmentManager {
             
             // Check if sections match when adding lab to existing lecture or vice versa
             if (hasLecture && StudentDashboard.isLab(selected.getSection())) {
-                String selectedBaseSection = selected.getSection().split("-")[0];
+                String selectedBaseSection = index.getLectureSection(selected);
                 if (!selectedBaseSection.equals(existingSection)) {
+                    StringBuilder message = new StringBuilder("Lab section must match your lecture section (" + existingSection + ")!");
+                    List<Course> labs = index.getLabs(selected.getCourseCode(), existingSection);
+                    for (int i = 0; i < labs.size(); i++) {
+                        message.append(i == 0 ? "\nLabs of " + existingSection + ": " : ", ").append(labs.get(i).getSection());
+                    }
                     Alert alert = new Alert(Alert.AlertType.WARNING);
                     alert.setTitle("Section Mismatch");
                     alert.setHeaderText(null);
-                    alert.setContentText("Lab section must match your lecture section (" + existingSection + ")!");
+                    alert.setContentText(message.toString());
                     alert.showAndWait();
                     return;
                 }
@@ -154,7 +174,7 @@ public class EnlistmentManager {
 
             // Add to the actual student's list
             enrolledList.add(selected);
-            planner.setEnrolledCourses(enrolledList);
+            planner.addCourse(selected);
             
             // Save back to student's schedule map
             dashboard.getCurrentStudent().setSchedule(
@@ -175,7 +195,7 @@ public class EnlistmentManager {
         
         if (selected != null) {
             enrolledList.remove(selected);
-            planner.setEnrolledCourses(enrolledList);
+            planner.removeCourse(selected);
 
             dashboard.getCurrentStudent().setSchedule(
                 dashboard.getCurrentStudent().getActiveScheduleName(), 
@@ -190,6 +210,21 @@ public class EnlistmentManager {
 
     private void refreshEnrolledTable() {
         enrolledCourses.setAll(enrolledList);
+        refreshConflicts();
+    }
+
+    private void refreshConflicts() {
+        if (conflictsLabel == null) {
+            return;
+        }
+        List<ConflictAnalyzer.Conflict> conflicts = ConflictAnalyzer.findConflicts(enrolledList);
+        StringBuilder text = new StringBuilder();
+        for (ConflictAnalyzer.Conflict conflict : conflicts) {
+            text.append(text.length() == 0 ? "Schedule conflicts:" : "").append("\n").append(conflict);
+        }
+        conflictsLabel.setText(text.toString());
+        conflictsLabel.setVisible(!conflicts.isEmpty());
+        conflictsLabel.setManaged(!conflicts.isEmpty());
     }
     
     // Refreshes the list of enrolled courses
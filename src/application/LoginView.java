@@ -1,4 +1,5 @@
 package application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -15,9 +16,8 @@ import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
 import javafx.stage.Modality;
 import handler.FileManager;
+import handler.UserRepository;
 import model.Student;
-import java.nio.file.Path;
-import java.util.ArrayList;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
@@ -25,7 +25,6 @@ import javafx.scene.control.TableView;
 import java.util.List;
 import javafx.scene.text.Text;
 import javafx.scene.control.Control;
-import javafx.scene.text.Font;
 
 public class LoginView {
     private static final String ICS_BLUE = "#1753A0";
@@ -49,32 +48,45 @@ public class LoginView {
     private TextField emailField;
     private PasswordField passwordField;
     private Label messageLabel;
+    private Button loginBtn;
+    private Button registerBtn;
 
-    // File manager and data
-    private FileManager fileManager;
-    private ArrayList<Student> userList;
-    private Path savePath;
+    // Accounts; null on the first login view until the startup loader has opened the user store
+    private UserRepository users;
 
-    public LoginView() {
-        this.fileManager = new FileManager();
-        this.savePath = FileManager.getSavePath();
-        this.userList = fileManager.load(savePath);
+    public LoginView(UserRepository users) {
+        this.users = users;
 
-        if (userList == null) {
-            userList = new ArrayList<>();
-        }
+        loadCustomFonts();
+        setProperties();
+    }
 
+    // First login view, shown while the startup loader is still opening the user store.
+    // Login and Register are enabled once the accounts are in.
+    public LoginView(StartupLoader startup) {
         loadCustomFonts();
         setProperties();
+
+        loginBtn.setDisable(true);
+        registerBtn.setDisable(true);
+        messageLabel.setText("Loading accounts...");
+        startup.getUsers().whenComplete((loaded, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                Throwable cause = (error.getCause() != null) ? error.getCause() : error;
+                messageLabel.setText("Could not open the user store: " + cause.getMessage());
+                return;
+            }
+            this.users = loaded;
+            loginBtn.setDisable(false);
+            registerBtn.setDisable(false);
+            messageLabel.setText("");
+        }));
     }
 
     private void loadCustomFonts() {
         try {
-            Font.loadFont(getClass().getResourceAsStream("/fonts/Inter_18pt-Regular.ttf"), 12);
-            Font.loadFont(getClass().getResourceAsStream("/fonts/Inter_18pt-Medium.ttf"), 12);
-            Font.loadFont(getClass().getResourceAsStream("/fonts/Inter_18pt-SemiBold.ttf"), 12);
-            Font.loadFont(getClass().getResourceAsStream("/fonts/Inter_18pt-Bold.ttf"), 12);
-            System.out.println("Inter fonts loaded successfully in LoginView!");
+            StartupLoader.loadFonts();
         } catch (Exception e) {
             System.out.println("Could not load Inter fonts: " + e.getMessage());
             e.printStackTrace();
@@ -88,7 +100,7 @@ public class LoginView {
         // Background image layer
         ImageView backgroundImage = null;
         try {
-            Image bgImg = new Image("file:src/img/background2.jpg");
+            Image bgImg = StartupLoader.image("file:src/img/background2.jpg");
             backgroundImage = new ImageView(bgImg);
             backgroundImage.setPreserveRatio(false);
             backgroundImage.fitWidthProperty().bind(rootContainer.widthProperty());
@@ -113,7 +125,7 @@ public class LoginView {
         // ICS Logo
         ImageView leftlogoView = null;
         try {
-            Image leftlogo = new Image("file:src/img/ics-logo.png");
+            Image leftlogo = StartupLoader.image("file:src/img/ics-logo.png");
             leftlogoView = new ImageView(leftlogo);
             leftlogoView.setFitWidth(100);
             leftlogoView.setPreserveRatio(true);
@@ -124,7 +136,7 @@ public class LoginView {
         // DANGAL Logo
         ImageView rightlogoView = null;
         try {
-            Image rightlogo = new Image("file:src/img/dangal.png");
+            Image rightlogo = StartupLoader.image("file:src/img/dangal.png");
             rightlogoView = new ImageView(rightlogo);
             rightlogoView.setFitWidth(280);
             rightlogoView.setPreserveRatio(true);
@@ -285,11 +297,11 @@ public class LoginView {
         grid.add(messageLabel, 0, 6, 2, 1);
 
         // Initialize buttons with improved styling
-        Button loginBtn = new Button("Login");
+        loginBtn = new Button("Login");
         styleButton(loginBtn, ICS_BLUE, WHITE, true);
         loginBtn.setPrefWidth(110);
 
-        Button registerBtn = new Button("Register");
+        registerBtn = new Button("Register");
         styleButton(registerBtn, ICS_BLUE, WHITE, true);
         registerBtn.setPrefWidth(110);
 
@@ -334,7 +346,7 @@ public class LoginView {
         // Background image for popup
         ImageView popupBgImage = null;
         try {
-            Image bgImg = new Image("file:src/img/background.png");
+            Image bgImg = StartupLoader.image("file:src/img/background.png");
             popupBgImage = new ImageView(bgImg);
             popupBgImage.setPreserveRatio(false);
             popupBgImage.fitWidthProperty().bind(popupRoot.widthProperty());
@@ -465,18 +477,11 @@ public class LoginView {
         String email = emailField.getText().trim();
         String password = passwordField.getText();
 
-        Student foundStudent = null;
-        for (Student student : userList) {
-            if (student.getEmail().equalsIgnoreCase(email) &&
-                student.getPassword().equals(password)) {
-                foundStudent = student;
-                break;
-            }
-        }
+        Student foundStudent = users.authenticate(email, password);
 
         if (foundStudent != null) {
             System.out.println("Login successful for: " + foundStudent.getFullName());
-            StudentDashboard dashboard = new StudentDashboard(foundStudent);
+            StudentDashboard dashboard = new StudentDashboard(foundStudent, users);
             dashboard.setStage(stage);
         } else {
             messageLabel.setText("Invalid email or password");
@@ -485,7 +490,7 @@ public class LoginView {
     
     // Handles Register and checks if there is a duplicate registration
     private void handleRegister() {
-    	RegisterView registerView = new RegisterView(fileManager, userList, savePath);
+    	RegisterView registerView = new RegisterView(users);
         registerView.showAndWait();
 
         if (registerView.isRegistrationSuccessful()) {
@@ -561,8 +566,8 @@ public class LoginView {
         // Enable text wrapping for Event column only
         wrapColumnText(eventCol);
 
-        // Load data using FileManager
-        List<String[]> calendarData = fileManager.loadAcademicCalendar();
+        // Load data through the shared catalog cache
+        List<String[]> calendarData = FileManager.getCatalogCache().getAcademicCalendar();
         if (calendarData != null) {
             table.getItems().addAll(calendarData);
         }
@@ -634,8 +639,8 @@ public class LoginView {
 
         table.getColumns().addAll(yearCol, dateCol, holidayCol);
 
-        // Load data using FileManager
-        List<String[]> holidaysData = fileManager.loadHolidays();
+        // Load data through the shared catalog cache
+        List<String[]> holidaysData = FileManager.getCatalogCache().getHolidays();
         if (holidaysData != null) {
             table.getItems().addAll(holidaysData);
         }
@@ -14,17 +14,34 @@ package application;
 
 import javafx.application.Application;
 import javafx.stage.Stage;
+import handler.UserRepository;
 
 public class Main extends Application {
 
+    // Accounts, catalog, fonts and images are loaded once here, in the background, and shared by every view
+    private StartupLoader startup;
+
     @Override
     public void start(Stage primaryStage) throws Exception {
         primaryStage.setTitle("ICS Registration Planner");
         primaryStage.setWidth(1280);
         primaryStage.setHeight(720);
 
-        LoginView loginView = new LoginView();
+        startup = new StartupLoader();
+
+        // Shown right away; login is enabled once the accounts are loaded
+        LoginView loginView = new LoginView(startup);
         loginView.setStage(primaryStage);
+        startup.mark("login view shown");
+    }
+
+    // Writes any schedule edits still waiting in the autosave queue
+    @Override
+    public void stop() {
+        UserRepository users = (startup == null) ? null : startup.getLoadedUsers();
+        if (users != null) {
+            users.close();
+        }
     }
 
     public static void main(String[] args) {
@@ -6,10 +6,9 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
-import handler.FileManager;
+import handler.UserRepository;
+import java.io.IOException;
 import model.Student;
-import java.nio.file.Path;
-import java.util.ArrayList;
 import javafx.scene.text.Font;
 
 public class RegisterView {
@@ -24,14 +23,10 @@ public class RegisterView {
     
     private Stage stage;
     private boolean registrationSuccessful = false;
-    private FileManager fileManager;
-    private ArrayList<Student> userList;
-    private Path savePath;
+    private UserRepository users;
     
-    public RegisterView(FileManager fileManager, ArrayList<Student> userList, Path savePath) {
-        this.fileManager = fileManager;
-        this.userList = userList;
-        this.savePath = savePath;
+    public RegisterView(UserRepository users) {
+        this.users = users;
         this.stage = new Stage();
         this.stage.initModality(Modality.APPLICATION_MODAL);
         this.stage.setTitle("Register New Account");
@@ -174,10 +169,14 @@ public class RegisterView {
                     passwordField.getText(),
                     programCombo.getValue()
                 );
-                userList.add(newStudent);
-                fileManager.save(userList, savePath);
-                registrationSuccessful = true;
-                stage.close();
+                try {
+                    users.register(newStudent);
+                    registrationSuccessful = true;
+                    stage.close();
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                    messageLabel.setText("Could not save account. Please try again.");
+                }
             }
         });
         
@@ -326,10 +325,8 @@ public class RegisterView {
             return "Please enter a valid UP email address (e.g., name@up.edu.ph)";
         }
         
-        for (Student s : userList) {
-            if (s.getEmail().equalsIgnoreCase(emailText)) {
-                return "Email already registered";
-            }
+        if (users.isRegistered(emailText)) {
+            return "Email already registered";
         }
         
         return null;
@@ -6,6 +6,7 @@ import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import model.Course;
+import model.MeetingTime;
 import model.Student;
 import javafx.scene.text.Font;
 import java.util.ArrayList;
@@ -387,38 +388,18 @@ public class ScheduleComparisonView {
 
     private void fillCalendar(GridPane grid, List<Course> courses, String bgColor, String textColor, String borderColor) {
         for (Course c : courses) {
-            if (c.getTimes() == null || c.getTimes().trim().isEmpty() || c.getTimes().equalsIgnoreCase("TBA")) {
+            MeetingTime meeting = c.getMeetingTime();
+            if (!meeting.isScheduled()) {
                 continue;
             }
 
-            String[] parts = c.getTimes().split("-");
-            if (parts.length < 2) continue;
-
-            int startHour = parseHour(parts[0].trim());
-            int endHour = parseHour(parts[1].trim());
-            if (startHour == -1 || endHour == -1) continue;
-
-            int start24, end24;
-            if (endHour < startHour) {
-                start24 = startHour;
-                end24 = (endHour == 12) ? 12 : endHour + 12;
-            } else {
-                if (startHour >= 7) {
-                    start24 = startHour;
-                    end24 = endHour;
-                } else {
-                    start24 = (startHour == 12) ? 12 : startHour + 12;
-                    end24 = (endHour == 12) ? 12 : endHour + 12;
-                }
-            }
-
-            int startRow = start24 - 6;
-            int endRow = end24 - 6;
+            // Row 1 is 7:00; a class ending part-way through an hour still fills that hour's row
+            int startRow = meeting.getStartMinute() / 60 - 6;
+            int endRow = (meeting.getEndMinute() + 59) / 60 - 6;
             int rowSpan = Math.max(1, endRow - startRow);
 
-            for (String rawDay : expandDays(c.getDays())) {
-                int col = dayToColumn(rawDay);
-                if (col == -1) continue;
+            for (int col = 0; col < MeetingTime.DAY_COUNT; col++) {
+                if (!meeting.meetsOn(col)) continue;
 
                 Label courseBlock = new Label(c.getCourseCode() + "\n" + c.getSection());
                 courseBlock.setStyle(
@@ -449,54 +430,6 @@ public class ScheduleComparisonView {
         }
     }
 
-    private int parseHour(String timeStr) {
-        try {
-            String hourPart = timeStr.split(":")[0].trim();
-            return Integer.parseInt(hourPart);
-        } catch (Exception e) {
-            return -1;
-        }
-    }
-
-    private static int dayToColumn(String day) {
-        switch (day) {
-            case "Mon": return 0;
-            case "Tue": return 1;
-            case "Wed": return 2;
-            case "Thu": return 3;
-            case "Fri": return 4;
-            case "Sat": return 5;
-            default: return -1;
-        }
-    }
-
-    private static List<String> expandDays(String dayString) {
-        dayString = dayString.trim();
-        List<String> days = new ArrayList<>();
-
-        if (dayString.equalsIgnoreCase("TTh")) {
-            days.add("Tue");
-            days.add("Thu");
-        } else if (dayString.equalsIgnoreCase("WF")) {
-            days.add("Wed");
-            days.add("Fri");
-        } else if (dayString.equalsIgnoreCase("M") || dayString.equalsIgnoreCase("Mon")) {
-            days.add("Mon");
-        } else if (dayString.equalsIgnoreCase("T") || dayString.equalsIgnoreCase("Tue") || dayString.equalsIgnoreCase("Tues")) {
-            days.add("Tue");
-        } else if (dayString.equalsIgnoreCase("W") || dayString.equalsIgnoreCase("Wed")) {
-            days.add("Wed");
-        } else if (dayString.equalsIgnoreCase("Th") || dayString.equalsIgnoreCase("Thu") || dayString.equalsIgnoreCase("Thurs")) {
-            days.add("Thu");
-        } else if (dayString.equalsIgnoreCase("F") || dayString.equalsIgnoreCase("Fri")) {
-            days.add("Fri");
-        } else if (dayString.equalsIgnoreCase("S") || dayString.equalsIgnoreCase("Sat")) {
-            days.add("Sat");
-        }
-
-        return days;
-    }
-
     public void onScheduleChanged(String newActiveName) {
         refreshView();
     }
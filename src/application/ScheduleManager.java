@@ -56,6 +56,7 @@ public class ScheduleManager {
                 return;
             }
             student.setSchedule(name, new ArrayList<>(student.getActiveSchedule()));
+            onScheduleChanged.run();
             showAlert(Alert.AlertType.INFORMATION, "Schedule Saved", 
                      "Schedule '" + name + "' has been saved.");
         });
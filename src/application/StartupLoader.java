@@ -0,0 +1,144 @@
+package application;
+
+import handler.CatalogCache;
+import handler.FileManager;
+import handler.UserRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import javafx.scene.image.Image;
+import javafx.scene.text.Font;
+
+// Loads what the views need at startup on background threads, side by side, so the stage can be
+// shown right away and each view fills in as its data arrives:
+//   catalog    - catalog cache (binary snapshot or CSVs)
+//   user store - account index; needs the catalog for saved-schedule sections
+//   fonts, images
+//   login data, dashboard data - calendar, holidays, offerings, program courses, the offering
+//                                index and the conflict matrix, so the first lookups from the
+//                                views are cache hits
+// With -Dplanner.debug=true, each phase's start and end (ms since the loader was created) is
+// printed once everything is in.
+public class StartupLoader {
+    private static final String[] FONTS = {"/fonts/Inter_18pt-Regular.ttf", "/fonts/Inter_18pt-Medium.ttf",
+            "/fonts/Inter_18pt-SemiBold.ttf", "/fonts/Inter_18pt-Bold.ttf"};
+    private static final String[] IMAGES = {"file:src/img/background2.jpg", "file:src/img/ics-logo.png",
+            "file:src/img/dangal.png", "file:src/img/background.png"};
+
+    private static boolean fontsLoaded;
+
+    // Images shared by every view, so logging out and back in does not decode them again
+    private static final Map<String, Image> images = new ConcurrentHashMap<>();
+
+    private final long startNanos = System.nanoTime();
+    private final List<String> timings = new ArrayList<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(3, runnable -> {
+        Thread thread = new Thread(runnable, "startup-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final CompletableFuture<CatalogCache> catalog;
+    private final CompletableFuture<UserRepository> users;
+
+    public StartupLoader() {
+        catalog = phase("catalog", FileManager::getCatalogCache);
+        users = catalog.thenApplyAsync(c -> timed("user store",
+                () -> new UserRepository(FileManager.getUserStore(), FileManager.getPersistenceService())), executor);
+        CompletableFuture<Void> fonts = phase("fonts", () -> {
+            loadFonts();
+            return null;
+        });
+        CompletableFuture<Void> pictures = phase("images", () -> {
+            for (String url : IMAGES) {
+                image(url);
+            }
+            return null;
+        });
+        CompletableFuture<Void> loginData = catalog.thenAcceptAsync(c -> timed("login data", () -> {
+            c.getAcademicCalendar();
+            c.getHolidays();
+            return null;
+        }), executor);
+        CompletableFuture<Void> dashboardData = catalog.thenAcceptAsync(c -> timed("dashboard data", () -> {
+            c.getCourseOfferings();
+            for (String program : FileManager.PROGRAMS) {
+                c.getProgramCourseCodes(program);
+            }
+            c.getOfferingIndex();
+            c.getConflictMatrix();
+            return null;
+        }), executor);
+
+        CompletableFuture.allOf(users, fonts, pictures, loginData, dashboardData).whenComplete((done, error) -> {
+            executor.shutdown();
+            if (FileManager.DEBUG) {
+                synchronized (timings) {
+                    System.out.println("Startup timings: " + String.join(", ", timings));
+                }
+            }
+        });
+    }
+
+    // Registers the Inter fonts with JavaFX; later calls return at once, or wait for a load in progress
+    public static synchronized void loadFonts() {
+        if (fontsLoaded) {
+            return;
+        }
+        for (String font : FONTS) {
+            Font.loadFont(StartupLoader.class.getResourceAsStream(font), 12);
+        }
+        fontsLoaded = true;
+        System.out.println("Inter fonts loaded successfully!");
+    }
+
+    // Image loaded once and shared; a missing file gives an image in the error state, as new Image does
+    public static Image image(String url) {
+        return images.computeIfAbsent(url, Image::new);
+    }
+
+    public CompletableFuture<UserRepository> getUsers() {
+        return users;
+    }
+
+    // The accounts if they finished loading, otherwise null
+    public UserRepository getLoadedUsers() {
+        if (!users.isDone() || users.isCompletedExceptionally()) {
+            return null;
+        }
+        return users.join();
+    }
+
+    // Records a step that happens outside the loader, e.g. the first scene being shown
+    public void mark(String name) {
+        long now = elapsedMillis();
+        synchronized (timings) {
+            timings.add(name + " at " + now + " ms");
+        }
+    }
+
+    private <T> CompletableFuture<T> phase(String name, Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> timed(name, work), executor);
+    }
+
+    private <T> T timed(String name, Supplier<T> work) {
+        long start = elapsedMillis();
+        try {
+            return work.get();
+        } finally {
+            long end = elapsedMillis();
+            synchronized (timings) {
+                timings.add(name + " " + start + "-" + end + " ms");
+            }
+        }
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -1,5 +1,8 @@
 package application;
 
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -7,15 +10,23 @@ import javafx.scene.control.*;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import handler.CatalogCache;
 import handler.FileManager;
+import handler.OfferingIndex;
+import handler.OfferingsDiff;
+import handler.UserRepository;
 import model.Course;
+import model.MeetingTime;
 import model.Student;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import javafx.scene.image.Image;
 import javafx.scene.shape.SVGPath;
-import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 
 public class StudentDashboard {
@@ -32,12 +43,16 @@ public class StudentDashboard {
     private Stage stage;
     private BorderPane root;
     private Student currentStudent;
-    private FileManager fileManager;
+    private CatalogCache catalog;
+    private UserRepository users;
     private EnlistmentManager enlistmentManager;
     private GridPane calendarGrid;
     private VBox calendarInfoPane;
     private ScheduleManager scheduleManager;
     private ScheduleComparisonView compareView;
+    private Consumer<OfferingsDiff> offeringsListener;
+    private final Map<String, ObservableList<Course>> programViews = new HashMap<>();
+    private OfferingIndex programViewsIndex;
     
     // ADDED PROFILE
     private ImageView profileImageView;
@@ -45,14 +60,17 @@ public class StudentDashboard {
     private static final String DEFAULT_PROFILE_PATH = "src/img/default-profile.png";
 
     
-    public StudentDashboard(Student student) {
+    public StudentDashboard(Student student, UserRepository users) {
         this.currentStudent = student;
-        this.fileManager = new FileManager();
+        this.catalog = FileManager.getCatalogCache();
+        this.users = users;
         this.root = new BorderPane();
         this.scene = new Scene(root, 1280, 720);
         
         loadCustomFonts();
         setProperties();
+        // After the login handler has shown the dashboard
+        Platform.runLater(this::showScheduleNotices);
     }
     
     private void setProperties() {
@@ -62,7 +80,7 @@ public class StudentDashboard {
         // Background image layer
         ImageView backgroundImage = null;
         try {
-            Image bgImg = new Image("file:src/img/background2.jpg");
+            Image bgImg = StartupLoader.image("file:src/img/background2.jpg");
             backgroundImage = new ImageView(bgImg);
             backgroundImage.setPreserveRatio(false);
             backgroundImage.fitWidthProperty().bind(rootContainer.widthProperty());
@@ -95,7 +113,7 @@ public class StudentDashboard {
         // DANGAL LOGO
         ImageView dangalLogo = null;
         try {
-            Image logo = new Image("file:src/img/dangal.png");
+            Image logo = StartupLoader.image("file:src/img/dangal.png");
             dangalLogo = new ImageView(logo);
             dangalLogo.setFitWidth(120);
             dangalLogo.setPreserveRatio(true);
@@ -534,26 +552,19 @@ public class StudentDashboard {
         
         tableView.getColumns().addAll(codeCol, titleCol, unitsCol, sectionCol, timesCol, daysCol, roomsCol);
         
-        List<Course> allOfferings = fileManager.loadCourseOfferings();
-        
-        programCombo.setOnAction(e -> {
-            tableView.getItems().clear();
-            String selectedProgram = programCombo.getValue();
-            
-            List<Course> programCourses = fileManager.loadProgramCourses(selectedProgram);
-            List<String> programCourseCodes = programCourses.stream()
-                    .map(Course::getCourseCode)
-                    .collect(Collectors.toList());
-            
-            List<Course> filteredOfferings = allOfferings.stream()
-                    .filter(course -> programCourseCodes.contains(course.getCourseCode()))
-                    .collect(Collectors.toList());
-            
-            tableView.getItems().addAll(filteredOfferings);
-        });
+        // Each program's list is made once, so switching programs only swaps the table's items
+        programViews.clear();
+        programCombo.setOnAction(e -> tableView.setItems(programView(programCombo.getValue())));
         
         programCombo.fireEvent(new javafx.event.ActionEvent());
 
+        // A republished course_offerings.csv is applied to the table as it stands, without reloading it
+        if (offeringsListener != null) {
+            catalog.removeOfferingsListener(offeringsListener);
+        }
+        offeringsListener = diff -> Platform.runLater(() -> applyOfferingsDiff(diff, tableView, programCombo.getValue()));
+        catalog.addOfferingsListener(offeringsListener);
+
         enlistmentManager = new EnlistmentManager(currentStudent.getActiveSchedule(), tableView, this);
         VBox enrolledPane = enlistmentManager.createEnlistmentPane();
         
@@ -566,6 +577,80 @@ public class StudentDashboard {
         return content;
     }
     
+    // The offerings table's list for the program, made from the offering index and reused until the
+    // offerings or the program's courses change
+    private ObservableList<Course> programView(String program) {
+        OfferingIndex index = catalog.getOfferingIndex();
+        if (index != programViewsIndex) {
+            programViews.clear();
+            programViewsIndex = index;
+        }
+        ObservableList<Course> view = programViews.get(program);
+        if (view == null) {
+            view = FXCollections.observableArrayList(index.getProgramOfferings(program));
+            programViews.put(program, view);
+        }
+        return view;
+    }
+
+    // Removes, replaces and adds only the sections that changed, then tells the student which
+    // sections in their saved schedules were dropped or moved by the registrar
+    private void applyOfferingsDiff(OfferingsDiff diff, TableView<Course> tableView, String program) {
+        ObservableList<Course> items = tableView.getItems();
+        items.removeAll(diff.getRemoved());
+
+        Set<String> shown = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            Course replacement = diff.getModified().get(items.get(i));
+            if (replacement != null) {
+                items.set(i, replacement);
+            }
+            shown.add(OfferingsDiff.sectionKey(items.get(i)));
+        }
+
+        OfferingIndex index = catalog.getOfferingIndex();
+        for (Course course : diff.getAdded()) {
+            if (index.isEligible(program, course) && shown.add(OfferingsDiff.sectionKey(course))) {
+                items.add(course);
+            }
+        }
+
+        Map<String, List<Course>> affected = diff.affectedSections(currentStudent);
+        if (affected.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("The registrar updated these sections in your saved schedules:\n");
+        for (Map.Entry<String, List<Course>> schedule : affected.entrySet()) {
+            for (Course course : schedule.getValue()) {
+                message.append("\n").append(schedule.getKey()).append(": ")
+                        .append(OfferingsDiff.sectionKey(course)).append(" - ").append(diff.describe(course));
+            }
+        }
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Course Offerings Updated");
+        alert.setHeaderText(null);
+        alert.setContentText(message.toString());
+        alert.showAndWait();
+    }
+
+    // Sections of the student's saved schedules that the registrar changed or dropped while they
+    // were logged out, as found when their record was read
+    private void showScheduleNotices() {
+        List<String> notices = currentStudent.takeScheduleNotices();
+        if (notices.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("The registrar updated these sections in your saved schedules since your last visit:\n");
+        for (String notice : notices) {
+            message.append("\n").append(notice);
+        }
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Course Offerings Updated");
+        alert.setHeaderText(null);
+        alert.setContentText(message.toString());
+        alert.showAndWait();
+    }
+
     private VBox createCourseListContent() {
         VBox content = new VBox(15);
         content.setPadding(new Insets(20));
@@ -635,7 +720,7 @@ public class StudentDashboard {
         programCombo.setOnAction(e -> {
             tableView.getItems().clear();
             String selectedProgram = programCombo.getValue();
-            List<Course> programCourses = fileManager.loadProgramCourses(selectedProgram);
+            List<Course> programCourses = catalog.getProgramCourses(selectedProgram);
             tableView.getItems().addAll(programCourses);
         });
         
@@ -1117,49 +1202,22 @@ public class StudentDashboard {
         
         List<Course> enrolled = currentStudent.getActiveSchedule();
         for (Course c : enrolled) {
-            String times = c.getTimes();
-            if (times == null || times.trim().isEmpty() || times.equalsIgnoreCase("TBA")) {
+            MeetingTime meeting = c.getMeetingTime();
+            if (!meeting.isScheduled()) {
                 continue;
             }
             
-            String[] parts = times.split("-");
-            if (parts.length < 2) {
-                continue;
-            }
-            
-            String startRaw = parts[0].trim();
-            String endRaw = parts[1].trim();
-            
-            // NEW: fixed 5-7pm lab classes
-            int startHour = parseHour(startRaw);
-            int endHour = parseHour(endRaw);
-            if (startHour == -1 || endHour == -1) continue;
-            
-            int start24, end24;
-            if (endHour < startHour) {
-                start24 = startHour;
-                end24 = (endHour == 12) ? 12 : endHour + 12;
-            } else {
-                if (startHour >= 7) {
-                    start24 = startHour;
-                    end24 = endHour;
-                } else {
-                    start24 = (startHour == 12) ? 12 : startHour + 12;
-                    end24 = (endHour == 12) ? 12 : endHour + 12;
-                }
-            }
-            
-            int startRow = timeToRow(start24);
-            int endRow = timeToRow(end24);
+            // A class ending part-way through an hour still fills that hour's row
+            int startRow = minuteToRow(meeting.getStartMinute());
+            int endRow = minuteToRow(meeting.getEndMinute() + 59);
             int rowSpan = endRow - startRow;
             
             if (rowSpan <= 0) {
                 rowSpan = 1;
             }
             
-            for (String rawDay : expandDays(c.getDays())) {
-                int col = dayToColumn(rawDay);
-                if (col == -1) continue;
+            for (int col = 0; col < MeetingTime.DAY_COUNT; col++) {
+                if (!meeting.meetsOn(col)) continue;
                 
                 Label courseBlock = new Label(c.getCourseCode() + "\n" + c.getSection());
                 courseBlock.setStyle(
@@ -1183,19 +1241,6 @@ public class StudentDashboard {
         }
     }
     
-    // NEW: added saturday for grad classes
-    private int dayToColumn(String day) {
-        switch (day) {
-            case "Mon": return 0;
-            case "Tue": return 1;
-            case "Wed": return 2;
-            case "Thu": return 3;
-            case "Fri": return 4;
-            case "Sat": return 5;
-            default: return -1;
-        }
-    }
-    
     public static boolean isLab(String section) {
         return section.contains("-");
     }
@@ -1204,77 +1249,9 @@ public class StudentDashboard {
         return !isLab(section);
     }
 
-    // NEW: fixed 5-7pm lab classes
-    private int parseHour(String timeStr) {
-        try {
-            String hourPart = timeStr.split(":")[0].trim();
-            return Integer.parseInt(hourPart);
-        } catch (Exception e) {
-            return -1;
-        }
-    }
-
-    public static int convertTo24Hour(String time, String section) {
-        String hourPart = time.split(":")[0].trim();
-        int hour;
-        
-        try {
-            hour = Integer.parseInt(hourPart);
-        } catch(NumberFormatException e){
-            return -1;
-        }
-        
-        boolean lab = isLab(section);
-        
-        if (lab) {
-            if (hour >= 7 && hour <= 12) { 
-                return hour; 
-            } else if (hour >= 1 && hour <= 7) {
-                return hour + 12; 
-            } else {
-                return -1;
-            }
-        } else {
-            if (hour >= 7 && hour <= 12) {
-                return hour; 
-            } else if (hour >= 1 && hour <= 5) {
-                return hour + 12; 
-            } else {
-                return -1;
-            }
-        }
-    }
-
-    private int timeToRow(int hour24) {
-    	return hour24 - 6;
-    }
-
-    // included Thursday and Saturday, and full date strings (Tues, Thurs)
-    public static List<String> expandDays(String dayString) {
-        dayString = dayString.trim();
-        List<String> days = new ArrayList<>();
-
-        if (dayString.equalsIgnoreCase("TTh")) {
-            days.add("Tue");
-            days.add("Thu");
-        } else if (dayString.equalsIgnoreCase("WF")) {
-            days.add("Wed");
-            days.add("Fri");
-        } else if (dayString.equalsIgnoreCase("M") || dayString.equalsIgnoreCase("Mon")) {
-            days.add("Mon");
-        } else if (dayString.equalsIgnoreCase("T") || dayString.equalsIgnoreCase("Tue") || dayString.equalsIgnoreCase("Tues")) {
-            days.add("Tue");
-        } else if (dayString.equalsIgnoreCase("W") || dayString.equalsIgnoreCase("Wed")) {
-            days.add("Wed");
-        } else if (dayString.equalsIgnoreCase("Th") || dayString.equalsIgnoreCase("Thu") || dayString.equalsIgnoreCase("Thurs")) {
-            days.add("Thu");
-        } else if (dayString.equalsIgnoreCase("F") || dayString.equalsIgnoreCase("Fri")) {
-            days.add("Fri");
-        } else if (dayString.equalsIgnoreCase("S") || dayString.equalsIgnoreCase("Sat")) {
-            days.add("Sat");
-        }
-
-        return days;
+    // Row 1 is 7:00
+    private int minuteToRow(int minute) {
+    	return minute / 60 - 6;
     }
     
     private void showCourseInfo(Course course) {
@@ -1401,6 +1378,7 @@ public class StudentDashboard {
     
     private void onScheduleChanged() {
         refreshCalendar();
+        saveCurrentStudent();
         
         if (enlistmentManager != null) {
             enlistmentManager.updateEnrolledList(currentStudent.getActiveSchedule());
@@ -1411,23 +1389,25 @@ public class StudentDashboard {
         }
     }
     
+    // The save runs on the autosave thread; only the current student's bucket is written
     private void handleLogout() {
-        ArrayList<Student> users = fileManager.load(FileManager.getSavePath());
-        for (int i = 0; i < users.size(); i++) {
-            if (users.get(i).getEmail().equals(currentStudent.getEmail())) {
-                users.set(i, currentStudent);
-                break;
-            }
-        }
-        
         System.out.println("Logging out...");
         System.out.println("Saving " + currentStudent.getActiveSchedule().size() + " courses.");
-        fileManager.save(users, FileManager.getSavePath());
+        saveCurrentStudent();
+        users.requestFlush();
+        if (offeringsListener != null) {
+            catalog.removeOfferingsListener(offeringsListener);
+        }
         
-        LoginView loginView = new LoginView();
+        LoginView loginView = new LoginView(users);
         loginView.setStage(stage);
     }
     
+    // Queues a debounced background save so edits don't wait for logout
+    private void saveCurrentStudent() {
+        users.update(currentStudent);
+    }
+    
     public void setStage(Stage stage) {
         this.stage = stage;
         this.stage.setTitle("ICS Registration Planner - Dashboard");
@@ -1462,6 +1442,7 @@ public class StudentDashboard {
                 
                 String imagePath = "file:" + selectedFile.getAbsolutePath();
                 currentStudent.setProfilePicturePath(imagePath);
+                saveCurrentStudent();
                 
                 Alert alert = new Alert(Alert.AlertType.INFORMATION);
                 alert.setTitle("Success");
@@ -1481,6 +1462,7 @@ public class StudentDashboard {
     
     // called when schedule changes
     public void notifyScheduleChanged() {
+        saveCurrentStudent();
         if (compareView != null) {
             compareView.refreshView();
         }
@@ -1488,11 +1470,7 @@ public class StudentDashboard {
     
     private void loadCustomFonts() {
         try {
-            Font.loadFont(getClass().getResourceAsStream("/fonts/Inter_18pt-Regular.ttf"), 12);
-            Font.loadFont(getClass().getResourceAsStream("/fonts/Inter_18pt-Medium.ttf"), 12);
-            Font.loadFont(getClass().getResourceAsStream("/fonts/Inter_18pt-SemiBold.ttf"), 12);
-            Font.loadFont(getClass().getResourceAsStream("/fonts/Inter_18pt-Bold.ttf"), 12);
-            System.out.println("Inter fonts loaded successfully in StudentDashboard!");
+            StartupLoader.loadFonts();
         } catch (Exception e) {
             System.out.println("Could not load Inter fonts: " + e.getMessage());
             e.printStackTrace();
@@ -0,0 +1,53 @@
+package handler;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Crash-safe whole-file writes: the new contents go to a sibling temp file which is forced to disk
+// and then renamed over the target, so readers see either the old file or the new one, never half.
+public final class AtomicFiles {
+
+    public interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    public static void write(Path target, ContentWriter writer) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempPath = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+                writer.writeTo(out);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(tempPath, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        forceDirectory(directory);
+    }
+
+    // Makes the rename itself durable. Not every platform allows opening a directory, so this is best effort.
+    static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directory sync is not supported here (e.g. Windows); the rename is still atomic
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package handler;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import model.ConflictMatrix;
+import model.Course;
+
+// Parses each catalog file once and hands out the same unmodifiable list until the file changes,
+// so switching programs in the dashboard does not touch the disk.
+// A WatchService on the catalog directory marks files as changed; while it runs, a lookup is a
+// map read. If watching is not available, each lookup compares the file's mtime and size instead.
+// Callers must not modify the String[] rows of the calendar and holiday lists.
+// On construction the cache is seeded from the binary catalog snapshot (see CatalogSnapshot) for
+// every file that has not changed since the snapshot was compiled.
+// When course_offerings.csv is republished, the watcher reloads it after a short delay, reusing
+// the Course of every unchanged row, and hands the added/removed/modified sections to listeners.
+// It also keeps the catalog's ConflictMatrix, built on first use and refreshed on reload.
+public class CatalogCache {
+    private final FileManager files;
+    private final Path snapshotPath;
+    private volatile boolean snapshotCurrent;
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, ProgramCodes> programCodes = new ConcurrentHashMap<>();
+
+    // Bumped by the watcher for every event on a file, so entries loaded before it are stale
+    private final Map<Path, AtomicLong> changes = new ConcurrentHashMap<>();
+    private final Map<Path, Path> absolutePaths = new ConcurrentHashMap<>();
+    private volatile boolean watching;
+
+    // Rows of the last course_offerings.csv load, so a reload only builds Courses for changed rows.
+    // Seeded from the snapshot while the watcher may already be reloading.
+    private volatile Map<List<String>, Course> offeringRows = new HashMap<>();
+    // Offerings the listeners were last told about
+    private List<Course> publishedOfferings;
+    private final List<Consumer<OfferingsDiff>> offeringsListeners = new CopyOnWriteArrayList<>();
+    // Clashing pairs among the offerings it was built or last refreshed for
+    private ConflictMatrix conflictMatrix;
+    private volatile OfferingIndex offeringIndex;
+    private ScheduledExecutorService reloadExecutor;
+    private ScheduledFuture<?> pendingReload;
+
+    // Editors often write a file in several steps; wait for them to finish before reloading
+    private static final long RELOAD_DELAY_MILLIS = 300;
+
+    private static class Entry {
+        final long modified;
+        final long size;
+        final long change;
+        final List<?> value;
+
+        Entry(long modified, long size, long change, List<?> value) {
+            this.modified = modified;
+            this.size = size;
+            this.change = change;
+            this.value = value;
+        }
+    }
+
+    // Course codes of one program, together with the course list they were taken from
+    private static class ProgramCodes {
+        final List<Course> courses;
+        final Set<String> codes;
+
+        ProgramCodes(List<Course> courses, Set<String> codes) {
+            this.courses = courses;
+            this.codes = codes;
+        }
+    }
+
+    public CatalogCache(FileManager files, Path catalogDirectory, Path snapshotPath) {
+        this.files = files;
+        this.snapshotPath = snapshotPath;
+        startWatcher(catalogDirectory);
+        snapshotCurrent = loadSnapshot();
+    }
+
+    // Whether every catalog file was served from the snapshot at startup
+    public boolean isSnapshotCurrent() {
+        return snapshotCurrent;
+    }
+
+    public List<Course> getCourseOfferings() {
+        return get(FileManager.COURSE_OFFERINGS_PATH, this::loadCourseOfferings);
+    }
+
+    private synchronized List<Course> loadCourseOfferings() {
+        Map<List<String>, Course> rows = new HashMap<>();
+        List<Course> courses = files.loadCourseOfferings(offeringRows, rows);
+        offeringRows = rows;
+        return courses;
+    }
+
+    // Clashing sections of the current offerings. After course_offerings.csv changes, the first call
+    // refreshes the previous matrix, comparing only the new and changed sections.
+    public synchronized ConflictMatrix getConflictMatrix() {
+        List<Course> offerings = getCourseOfferings();
+        conflictMatrix = (conflictMatrix == null) ? ConflictMatrix.build(offerings) : conflictMatrix.refresh(offerings);
+        return conflictMatrix;
+    }
+
+    // Called on the catalog-watcher's reload thread, not the FX thread, with what changed in
+    // course_offerings.csv. Listeners may be told about a change they have already seen.
+    public synchronized void addOfferingsListener(Consumer<OfferingsDiff> listener) {
+        if (publishedOfferings == null) {
+            publishedOfferings = getCourseOfferings();
+        }
+        offeringsListeners.add(listener);
+    }
+
+    public void removeOfferingsListener(Consumer<OfferingsDiff> listener) {
+        offeringsListeners.remove(listener);
+    }
+
+    // Empty for an unknown program
+    public List<Course> getProgramCourses(String program) {
+        Path path = FileManager.getProgramCoursesPath(program);
+        if (path == null) {
+            return Collections.emptyList();
+        }
+        return get(path, () -> files.loadProgramCourses(program));
+    }
+
+    // Codes of the program's curriculum courses, for filtering offerings
+    public Set<String> getProgramCourseCodes(String program) {
+        List<Course> courses = getProgramCourses(program);
+        ProgramCodes cached = programCodes.get(program);
+        if (cached != null && cached.courses == courses) {
+            return cached.codes;
+        }
+        Set<String> codes = new HashSet<>();
+        for (Course course : courses) {
+            codes.add(course.getCourseCode());
+        }
+        cached = new ProgramCodes(courses, Collections.unmodifiableSet(codes));
+        programCodes.put(program, cached);
+        return cached.codes;
+    }
+
+    // Lookups by course code, lecture section and program over the current offerings; rebuilt
+    // when the offerings or any program's course list has changed. Checking allocates nothing.
+    public OfferingIndex getOfferingIndex() {
+        List<Course> offerings = getCourseOfferings();
+        OfferingIndex index = offeringIndex;
+        if (index != null && index.getOfferings() == offerings && isCurrent(index.getProgramCodes())) {
+            return index;
+        }
+        Map<String, Set<String>> codes = new HashMap<>();
+        for (String program : FileManager.PROGRAMS) {
+            codes.put(program, getProgramCourseCodes(program));
+        }
+        index = new OfferingIndex(offerings, Collections.unmodifiableMap(codes));
+        offeringIndex = index;
+        return index;
+    }
+
+    // getProgramCourseCodes hands out the same Set until the program's file changes
+    private boolean isCurrent(Map<String, Set<String>> codes) {
+        for (int i = 0; i < FileManager.PROGRAMS.size(); i++) {
+            String program = FileManager.PROGRAMS.get(i);
+            if (codes.get(program) != getProgramCourseCodes(program)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<String[]> getAcademicCalendar() {
+        return get(FileManager.CALENDAR_PATH, files::loadAcademicCalendar);
+    }
+
+    public List<String[]> getHolidays() {
+        return get(FileManager.HOLIDAYS_PATH, files::loadHolidays);
+    }
+
+    // Writes the snapshot from the cached lists, parsing any file not loaded yet. False if it failed.
+    public boolean saveSnapshot() {
+        List<CatalogSnapshot.FileImage> images = new ArrayList<>();
+        getCourseOfferings();
+        images.add(image(FileManager.COURSE_OFFERINGS_PATH, CatalogSnapshot.OFFERINGS));
+        for (String program : FileManager.PROGRAMS) {
+            getProgramCourses(program);
+            images.add(image(FileManager.getProgramCoursesPath(program), CatalogSnapshot.PROGRAM));
+        }
+        getAcademicCalendar();
+        images.add(image(FileManager.CALENDAR_PATH, CatalogSnapshot.ROWS));
+        getHolidays();
+        images.add(image(FileManager.HOLIDAYS_PATH, CatalogSnapshot.ROWS));
+
+        try {
+            CatalogSnapshot.write(snapshotPath, images);
+            snapshotCurrent = true;
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // The list and the file attributes it was parsed under, taken from one entry so they agree
+    private CatalogSnapshot.FileImage image(Path path, byte kind) {
+        Entry entry = entries.get(key(path));
+        return new CatalogSnapshot.FileImage(path, entry.modified, entry.size, kind, entry.value);
+    }
+
+    // Seeds the entries of the snapshot's files whose mtime and size still match.
+    // Returns whether all of them did.
+    private boolean loadSnapshot() {
+        List<CatalogSnapshot.FileImage> images = CatalogSnapshot.read(snapshotPath);
+        if (images == null) {
+            return false;
+        }
+
+        int stale = 0;
+        for (CatalogSnapshot.FileImage image : images) {
+            Path key = key(image.path);
+            long change = changeCount(key);
+            long[] attributes = attributesOf(key);
+            if (attributes[0] != image.modified || attributes[1] != image.size) {
+                stale++;
+                continue;
+            }
+            if (image.kind == CatalogSnapshot.OFFERINGS) {
+                Map<List<String>, Course> rows = new HashMap<>();
+                for (Object row : image.value) {
+                    Course course = (Course) row;
+                    rows.put(FileManager.offeringRowKey(course), course);
+                }
+                offeringRows = rows;
+            }
+            entries.put(key, new Entry(image.modified, image.size, change, Collections.unmodifiableList(image.value)));
+        }
+        if (stale > 0 && FileManager.DEBUG) {
+            System.out.println("Catalog snapshot is out of date for " + stale + " files; reading their CSVs");
+        }
+        return stale == 0 && images.size() == 3 + FileManager.PROGRAMS.size();
+    }
+
+    // A map read while the watcher says the file is unchanged; otherwise the file is checked under
+    // the cache's lock, so the reload thread and a lookup never parse the same change twice or let
+    // an older parse replace a newer entry
+    @SuppressWarnings("unchecked")
+    private <T> List<T> get(Path path, Supplier<List<T>> loader) {
+        Path key = key(path);
+        long change = changeCount(key);
+        Entry entry = entries.get(key);
+        if (entry != null && watching && entry.change == change) {
+            return (List<T>) entry.value;
+        }
+        return load(key, loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> List<T> load(Path key, Supplier<List<T>> loader) {
+        long change = changeCount(key);
+        Entry entry = entries.get(key);
+        if (entry != null && watching && entry.change == change) {
+            return (List<T>) entry.value; // loaded by another thread while this one waited
+        }
+
+        long[] attributes = attributesOf(key);
+        long modified = attributes[0];
+        long size = attributes[1];
+        if (entry != null && entry.modified == modified && entry.size == size) {
+            entries.put(key, new Entry(modified, size, change, entry.value));
+            return (List<T>) entry.value;
+        }
+
+        // The change count and file attributes are taken before parsing, so an edit made while
+        // parsing leaves the entry stale and is picked up by the next lookup
+        List<T> value = Collections.unmodifiableList(loader.get());
+        entries.put(key, new Entry(modified, size, change, value));
+        return value;
+    }
+
+    // Restarts the delay on every event, so a burst of writes gives one reload
+    private synchronized void scheduleOfferingsReload() {
+        if (reloadExecutor == null) {
+            reloadExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "catalog-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (pendingReload != null) {
+            pendingReload.cancel(false);
+        }
+        pendingReload = reloadExecutor.schedule(this::publishOfferings, RELOAD_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void publishOfferings() {
+        OfferingsDiff diff;
+        synchronized (this) {
+            List<Course> offerings = getCourseOfferings();
+            if (publishedOfferings == null || offerings == publishedOfferings) {
+                return;
+            }
+            diff = OfferingsDiff.between(publishedOfferings, offerings);
+            publishedOfferings = offerings;
+            // Listeners re-check schedules next, so have the matrix ready
+            getConflictMatrix();
+        }
+        if (diff.isEmpty()) {
+            return;
+        }
+        if (FileManager.DEBUG) {
+            System.out.println("Course offerings changed: " + diff);
+        }
+        for (Consumer<OfferingsDiff> listener : offeringsListeners) {
+            try {
+                listener.accept(diff);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private Path key(Path path) {
+        return absolutePaths.computeIfAbsent(path, p -> p.toAbsolutePath().normalize());
+    }
+
+    // {mtime in millis, size}, or {-1, -1} for a missing file
+    private static long[] attributesOf(Path key) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+            return new long[] {attributes.lastModifiedTime().toMillis(), attributes.size()};
+        } catch (IOException e) {
+            // Missing file; the loader reports it and returns an empty list
+            return new long[] {-1, -1};
+        }
+    }
+
+    private long changeCount(Path key) {
+        AtomicLong count = changes.get(key);
+        return (count == null) ? 0 : count.get();
+    }
+
+    private void startWatcher(Path directory) {
+        WatchService watcher;
+        Path watched = directory.toAbsolutePath().normalize();
+        Path offerings = FileManager.COURSE_OFFERINGS_PATH.toAbsolutePath().normalize();
+        try {
+            watcher = FileSystems.getDefault().newWatchService();
+            watched.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            System.out.println("Catalog files will be checked on every lookup: " + e.getMessage());
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watcher.take();
+                    boolean offeringsChanged = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            // Events were dropped; treat every file as changed
+                            for (Path path : entries.keySet()) {
+                                changes.computeIfAbsent(path, p -> new AtomicLong()).incrementAndGet();
+                            }
+                            offeringsChanged = true;
+                        } else {
+                            Path path = watched.resolve((Path) event.context());
+                            changes.computeIfAbsent(path, p -> new AtomicLong()).incrementAndGet();
+                            offeringsChanged |= path.equals(offerings);
+                        }
+                    }
+                    if (offeringsChanged && !offeringsListeners.isEmpty()) {
+                        scheduleOfferingsReload();
+                    }
+                    if (!key.reset()) {
+                        System.out.println("Catalog directory is no longer watched: " + watched);
+                        watching = false;
+                        return;
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                watching = false;
+            }
+        }, "catalog-watcher");
+        thread.setDaemon(true);
+        watching = true;
+        thread.start();
+    }
+}
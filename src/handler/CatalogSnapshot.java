@@ -0,0 +1,209 @@
+package handler;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import model.Course;
+import model.MeetingTime;
+
+// Binary copy of the parsed catalog CSVs, so a cold start reads one file instead of parsing seven
+// text files. Each file's contents are kept with the mtime and size it had when compiled;
+// CatalogCache only uses a file's contents while those still match, and parses the CSV otherwise.
+//
+// Layout (big-endian):
+//   MAGIC, VERSION
+//   string count, then each string as [length][UTF-8 bytes]; every distinct value is stored once
+//   file count, then per file: [path][modified][size][kind][row count] and the rows, where
+//     OFFERINGS row = code, title, units, section, times, days, rooms,
+//                     [start minute][end minute] as shorts and [day mask] as a byte
+//     PROGRAM row   = code, title, units, description
+//     ROWS row      = [field count] and the fields
+//   with every text field a string table index. The meeting time is stored as MeetingTime parsed it,
+//   so reading a section parses no times or days; the text is kept for display.
+// The file is read into memory rather than mapped: a mapping lasts until it is garbage collected,
+// and on some systems would stop the next saveSnapshot() from replacing the file.
+// Compile it by hand with: java handler.CatalogSnapshot
+public class CatalogSnapshot {
+    private static final int MAGIC = 0x43415431; // "CAT1"
+    private static final int VERSION = 2;
+
+    // How a file's rows are stored
+    static final byte OFFERINGS = 1;
+    static final byte PROGRAM = 2;
+    static final byte ROWS = 3;
+
+    // One catalog file as it was when the snapshot was compiled
+    static final class FileImage {
+        final Path path;
+        final long modified;
+        final long size;
+        final byte kind;
+        final List<?> value;
+
+        FileImage(Path path, long modified, long size, byte kind, List<?> value) {
+            this.path = path;
+            this.modified = modified;
+            this.size = size;
+            this.kind = kind;
+            this.value = value;
+        }
+    }
+
+    private CatalogSnapshot() {
+    }
+
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        CatalogCache cache = new CatalogCache(new FileManager(), FileManager.CATALOG_DIRECTORY,
+                FileManager.CATALOG_SNAPSHOT_PATH);
+        if (cache.saveSnapshot()) {
+            System.out.println("Compiled " + FileManager.CATALOG_SNAPSHOT_PATH + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    static void write(Path target, List<FileImage> files) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (FileImage file : files) {
+            id(file.path.toString(), ids, strings);
+            for (Object row : file.value) {
+                if (row instanceof Course) {
+                    Course course = (Course) row;
+                    id(course.getCourseCode(), ids, strings);
+                    id(course.getCourseTitle(), ids, strings);
+                    id(course.getSection(), ids, strings);
+                    id(course.getTimes(), ids, strings);
+                    id(course.getDays(), ids, strings);
+                    id(course.getRooms(), ids, strings);
+                    id(course.getDescription(), ids, strings);
+                } else {
+                    for (String field : (String[]) row) {
+                        id(field, ids, strings);
+                    }
+                }
+            }
+        }
+
+        AtomicFiles.write(target, stream -> {
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.size());
+            for (String value : strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(files.size());
+            for (FileImage file : files) {
+                out.writeInt(ids.get(file.path.toString()));
+                out.writeLong(file.modified);
+                out.writeLong(file.size);
+                out.writeByte(file.kind);
+                out.writeInt(file.value.size());
+                for (Object row : file.value) {
+                    if (file.kind == ROWS) {
+                        String[] fields = (String[]) row;
+                        out.writeInt(fields.length);
+                        for (String field : fields) {
+                            out.writeInt(ids.get(field));
+                        }
+                        continue;
+                    }
+                    Course course = (Course) row;
+                    out.writeInt(ids.get(course.getCourseCode()));
+                    out.writeInt(ids.get(course.getCourseTitle()));
+                    out.writeInt(course.getUnits());
+                    if (file.kind == OFFERINGS) {
+                        MeetingTime meetingTime = course.getMeetingTime();
+                        out.writeInt(ids.get(course.getSection()));
+                        out.writeInt(ids.get(course.getTimes()));
+                        out.writeInt(ids.get(course.getDays()));
+                        out.writeInt(ids.get(course.getRooms()));
+                        out.writeShort(meetingTime.getStartMinute());
+                        out.writeShort(meetingTime.getEndMinute());
+                        out.writeByte(meetingTime.getDays());
+                    } else {
+                        out.writeInt(ids.get(course.getDescription()));
+                    }
+                }
+            }
+            out.flush();
+        });
+    }
+
+    // Null if there is no snapshot or it was written by another version; a damaged file is reported
+    static List<FileImage> read(Path source) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(source));
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+
+            String[] strings = new String[buffer.getInt()];
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < strings.length; i++) {
+                int length = buffer.getInt();
+                if (length > bytes.length) {
+                    bytes = new byte[length];
+                }
+                buffer.get(bytes, 0, length);
+                strings[i] = StringPool.intern(new String(bytes, 0, length, StandardCharsets.UTF_8));
+            }
+
+            int fileCount = buffer.getInt();
+            List<FileImage> files = new ArrayList<>(fileCount);
+            for (int f = 0; f < fileCount; f++) {
+                Path path = Paths.get(strings[buffer.getInt()]);
+                long modified = buffer.getLong();
+                long size = buffer.getLong();
+                byte kind = buffer.get();
+                int rowCount = buffer.getInt();
+                List<Object> rows = new ArrayList<>(rowCount);
+                for (int r = 0; r < rowCount; r++) {
+                    if (kind == ROWS) {
+                        String[] fields = new String[buffer.getInt()];
+                        for (int i = 0; i < fields.length; i++) {
+                            fields[i] = strings[buffer.getInt()];
+                        }
+                        rows.add(fields);
+                    } else if (kind == OFFERINGS) {
+                        rows.add(new Course(strings[buffer.getInt()], strings[buffer.getInt()], buffer.getInt(),
+                                strings[buffer.getInt()], strings[buffer.getInt()], strings[buffer.getInt()],
+                                strings[buffer.getInt()], MeetingTime.of(buffer.getShort(), buffer.getShort(), buffer.get())));
+                    } else {
+                        rows.add(new Course(strings[buffer.getInt()], strings[buffer.getInt()], buffer.getInt(),
+                                strings[buffer.getInt()]));
+                    }
+                }
+                files.add(new FileImage(path, modified, size, kind, rows));
+            }
+            return files;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException
+                | IllegalArgumentException e) {
+            System.out.println("Ignoring damaged catalog snapshot " + source + ": " + e);
+            return null;
+        }
+    }
+
+    private static void id(String value, Map<String, Integer> ids, List<String> strings) {
+        if (!ids.containsKey(value)) {
+            ids.put(value, strings.size());
+            strings.add(value);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package handler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Streaming CSV tokenizer used by all the catalog loaders. It reads from a Reader through its own
+// buffer in a single pass, one character at a time:
+//   - fields are separated by commas and records by \n, \r\n or \r
+//   - a field starting with a quote runs to the closing quote, so it may contain commas, line
+//     breaks and doubled quotes ("") standing for one quote
+//   - a quote anywhere else is kept as text
+// Blank lines are skipped. Field values are not trimmed.
+public class CsvReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    // Where the tokenizer is within a field
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3; // just read a quote inside a quoted field
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private final StringBuilder field = new StringBuilder();
+    private int lineNumber = 1;
+    private int recordLine;
+    private boolean started;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    public static CsvReader open(Path path) throws IOException {
+        return new CsvReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8));
+    }
+
+    // Line the last record read started on, for error messages
+    public int getLineNumber() {
+        return recordLine;
+    }
+
+    // Reads the next record into fields (cleared first). Returns false at the end of the input.
+    public boolean readRecord(List<String> fields) throws IOException {
+        fields.clear();
+        field.setLength(0);
+        recordLine = lineNumber;
+        int state = FIELD_START;
+
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (state == FIELD_START && fields.isEmpty()) {
+                    return false;
+                }
+                fields.add(field.toString());
+                return true;
+            }
+
+            switch (state) {
+                case FIELD_START:
+                    if (c == '"') {
+                        state = QUOTED;
+                    } else if (c == ',') {
+                        fields.add("");
+                    } else if (c == '\n' || c == '\r') {
+                        endOfLine(c);
+                        if (fields.isEmpty()) {
+                            recordLine = lineNumber;
+                            continue; // blank line
+                        }
+                        fields.add("");
+                        return true;
+                    } else {
+                        field.append((char) c);
+                        appendPlainRun();
+                        state = UNQUOTED;
+                    }
+                    break;
+                case UNQUOTED:
+                    if (c == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                        state = FIELD_START;
+                    } else if (c == '\n' || c == '\r') {
+                        endOfLine(c);
+                        fields.add(field.toString());
+                        return true;
+                    } else {
+                        field.append((char) c);
+                        appendPlainRun();
+                    }
+                    break;
+                case QUOTED:
+                    if (c == '"') {
+                        state = QUOTE_IN_QUOTED;
+                    } else {
+                        if (c == '\n') {
+                            lineNumber++;
+                        }
+                        field.append((char) c);
+                        appendQuotedRun();
+                    }
+                    break;
+                default: // QUOTE_IN_QUOTED
+                    if (c == '"') {
+                        field.append('"');
+                        state = QUOTED;
+                    } else if (c == ',') {
+                        fields.add(field.toString());
+                        field.setLength(0);
+                        state = FIELD_START;
+                    } else if (c == '\n' || c == '\r') {
+                        endOfLine(c);
+                        fields.add(field.toString());
+                        return true;
+                    } else {
+                        // Text after the closing quote is kept, as most spreadsheets do
+                        field.append((char) c);
+                        state = UNQUOTED;
+                    }
+                    break;
+            }
+        }
+    }
+
+    // Reads past the given number of records, e.g. header lines
+    public void skipRecords(int count, List<String> scratch) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (!readRecord(scratch)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Copies the characters up to the next comma or line break straight from the buffer
+    private void appendPlainRun() {
+        int start = position;
+        while (position < limit) {
+            char c = buffer[position];
+            if (c == ',' || c == '\n' || c == '\r') {
+                break;
+            }
+            position++;
+        }
+        field.append(buffer, start, position - start);
+    }
+
+    // Copies the characters up to the next quote or line break straight from the buffer
+    private void appendQuotedRun() {
+        int start = position;
+        while (position < limit) {
+            char c = buffer[position];
+            if (c == '"' || c == '\n') {
+                break;
+            }
+            position++;
+        }
+        field.append(buffer, start, position - start);
+    }
+
+    // Counts the line and swallows the \n of a \r\n pair
+    private void endOfLine(int c) throws IOException {
+        lineNumber++;
+        if (c == '\r' && peek() == '\n') {
+            position++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int count = reader.read(buffer, 0, buffer.length);
+        if (count <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = count;
+        // A byte order mark some editors put at the start of UTF-8 files is not part of the data
+        if (!started) {
+            started = true;
+            if (buffer[0] == '\uFEFF') {
+                position = 1;
+            }
+        }
+        return position < limit || fill();
+    }
+}
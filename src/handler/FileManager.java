@@ -6,7 +6,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import model.Course;
 import model.Student;
 
@@ -14,43 +16,134 @@ public class FileManager {
     
     // FILE PATHS
     private static final Path SAVE_PATH = Paths.get("src/database/users.txt");
-    private static final Path COURSE_OFFERINGS_PATH = Paths.get("src/database/course_offerings.csv");
-    private static final Path CMSC_COURSES_PATH = Paths.get("src/database/ics_cmsc_courses.csv");
-    private static final Path MIT_COURSES_PATH = Paths.get("src/database/ics_mit_courses.csv");
-    private static final Path MSCS_COURSES_PATH = Paths.get("src/database/ics_mscs_courses.csv");
-    private static final Path PHD_COURSES_PATH = Paths.get("src/database/ics_phd_courses.csv");
-    private static final Path CALENDAR_PATH = Paths.get("src/database/academic_calendar.csv");
-    private static final Path HOLIDAYS_PATH = Paths.get("src/database/holidays.csv");
-
-    public static Path getSavePath() {
-        return SAVE_PATH;
+    private static final Path USER_STORE_PATH = Paths.get("src/database/users");
+    private static final Path MAPPED_USER_STORE_PATH = Paths.get("src/database/users-mapped");
+    private static final Path USER_BACKUP_PATH = Paths.get("src/database/users-backup");
+    // Catalog files, also read by CatalogCache
+    static final Path CATALOG_DIRECTORY = Paths.get("src/database");
+    static final Path COURSE_OFFERINGS_PATH = Paths.get("src/database/course_offerings.csv");
+    static final Path CMSC_COURSES_PATH = Paths.get("src/database/ics_cmsc_courses.csv");
+    static final Path MIT_COURSES_PATH = Paths.get("src/database/ics_mit_courses.csv");
+    static final Path MSCS_COURSES_PATH = Paths.get("src/database/ics_mscs_courses.csv");
+    static final Path PHD_COURSES_PATH = Paths.get("src/database/ics_phd_courses.csv");
+    static final Path CALENDAR_PATH = Paths.get("src/database/academic_calendar.csv");
+    static final Path HOLIDAYS_PATH = Paths.get("src/database/holidays.csv");
+    static final Path CATALOG_SNAPSHOT_PATH = Paths.get("src/database/catalog.snapshot");
+    // Programs with a curriculum file
+    public static final List<String> PROGRAMS = List.of("BS Computer Science", "MS Computer Science",
+            "Master of Information Technology", "PhD Computer Science");
+
+    // Autosave settings; the debounce window can be overridden with -Dplanner.autosave.debounceMillis
+    private static final long AUTOSAVE_DEBOUNCE_MILLIS = Long.getLong("planner.autosave.debounceMillis", 1500);
+    private static final int AUTOSAVE_MAX_PENDING = 256;
+
+    // "sharded" (default; several instances may share it) or "mapped" (one instance at a time);
+    // set with -Dplanner.userStore=mapped
+    private static final String USER_STORE_TYPE = System.getProperty("planner.userStore", "sharded");
+
+    // Progress output for troubleshooting (startup timings, catalog reloads, save merges);
+    // turned on with -Dplanner.debug=true
+    public static final boolean DEBUG = Boolean.getBoolean("planner.debug");
+
+    // Shared by every FileManager so all views see the same index
+    private static UserStore userStore;
+    private static PersistenceService persistenceService;
+    private static CatalogCache catalogCache;
+
+    // Opens the configured user store, importing the old users.txt accounts the first time
+    public static synchronized UserStore getUserStore() {
+        if (userStore == null) {
+            StudentCodec codec = new StudentCodec(getCatalogCache());
+            if (USER_STORE_TYPE.equalsIgnoreCase("mapped")) {
+                userStore = new MappedUserStore(MAPPED_USER_STORE_PATH, codec);
+            } else {
+                userStore = new ShardedUserStore(USER_STORE_PATH, codec);
+            }
+            if (userStore.isEmpty()) {
+                ArrayList<Student> legacyUsers = loadLegacyUsers(SAVE_PATH);
+                if (legacyUsers != null && !legacyUsers.isEmpty()) {
+                    try {
+                        userStore.importUsers(legacyUsers);
+                        System.out.println("Imported " + legacyUsers.size() + " users into the " + USER_STORE_TYPE + " user store");
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+        return userStore;
     }
-    
-    // Saves student list to users.txt
-    public void save(ArrayList<Student> users, Path savePath) {
-        System.out.println("Saving...");
-        try {
-            ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(savePath));
-            out.writeObject(users);
-            out.close();
-            System.out.println("Saving complete.");
-        } catch (IOException e) {
-            e.printStackTrace();
+
+    // Background writer used for autosave and logout
+    public static synchronized PersistenceService getPersistenceService() {
+        if (persistenceService == null) {
+            persistenceService = new PersistenceService(getUserStore(), AUTOSAVE_DEBOUNCE_MILLIS, AUTOSAVE_MAX_PENDING);
+        }
+        return persistenceService;
+    }
+
+    // Parsed catalog files shared by all views; re-read only when a file changes.
+    // If the binary snapshot was missing or out of date it is recompiled in the background.
+    public static synchronized CatalogCache getCatalogCache() {
+        if (catalogCache == null) {
+            CatalogCache cache = new CatalogCache(new FileManager(), CATALOG_DIRECTORY, CATALOG_SNAPSHOT_PATH);
+            if (!cache.isSnapshotCurrent()) {
+                Thread thread = new Thread(cache::saveSnapshot, "catalog-snapshot");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            catalogCache = cache;
         }
+        return catalogCache;
+    }
+
+    // Incremental backups of the user store (see UserBackup for the command line)
+    public static UserBackup getUserBackup() {
+        return new UserBackup(USER_BACKUP_PATH);
     }
 
-    // Loads student list from users.txt
+    // Reads the accounts of the old file store for the one-time import: the users.txt snapshot with
+    // the users.journal records (written by the old store) replayed on top. Neither file is changed.
+    private static ArrayList<Student> loadLegacyUsers(Path loadPath) {
+        Path journalPath = loadPath.resolveSibling("users.journal");
+        if (!Files.exists(loadPath) && !Files.exists(journalPath)) {
+            return null;
+        }
+
+        ArrayList<Student> users = loadSnapshot(loadPath);
+        if (users == null) {
+            users = new ArrayList<>();
+        }
+
+        StudentCodec codec = new StudentCodec(getCatalogCache());
+        Map<String, Student> changes = new UserJournal(journalPath, codec).replay();
+        if (!changes.isEmpty()) {
+            for (int i = 0; i < users.size(); i++) {
+                Student changed = changes.remove(users.get(i).getEmail().toLowerCase());
+                if (changed != null) {
+                    users.set(i, changed);
+                }
+            }
+            users.addAll(changes.values());
+        }
+        return users;
+    }
 
-    public ArrayList<Student> load(Path loadPath) {
+    private static ArrayList<Student> loadSnapshot(Path loadPath) {
         if (!Files.exists(loadPath)) {
-            System.out.println("No existing file found at: " + loadPath);
             return null;
         }
-        
+
         try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(loadPath))) {
             @SuppressWarnings("unchecked")
             ArrayList<Student> users = (ArrayList<Student>) in.readObject();
-            System.out.println("Loading complete.");
+            // Serialization gives every student their own copy of each section
+            OfferingIndex offerings = getCatalogCache().getOfferingIndex();
+            for (Student student : users) {
+                for (String name : student.getSavedScheduleNames()) {
+                    student.getSchedule(name).replaceAll(offerings::canonical);
+                }
+            }
             return users;
         } catch (IOException | ClassNotFoundException e) {
             e.printStackTrace();
@@ -58,38 +151,46 @@ public class FileManager {
         return null;
     }
 
-    // Parses CSV line handling quoted fields with commas using regex
-    private List<String> parseCSVLine(String line) {
-        return Arrays.asList(line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)"));
-    }
-
     // Reads all course offerings from course_offerings.csv
     public List<Course> loadCourseOfferings() {
+        return loadCourseOfferings(Collections.emptyMap(), null);
+    }
+
+    // Like loadCourseOfferings(), but a row whose offeringRowKey is a key of previous is not parsed
+    // again: its Course is reused. Every row read is put into rows (when given) for the next reload.
+    List<Course> loadCourseOfferings(Map<List<String>, Course> previous, Map<List<String>, Course> rows) {
         List<Course> courses = new ArrayList<>();
-        try {
-            // Read entire file as list of lines
-            List<String> lines = Files.readAllLines(COURSE_OFFERINGS_PATH);
-            
+        List<String> parts = new ArrayList<>();
+        try (CsvReader csv = CsvReader.open(COURSE_OFFERINGS_PATH)) {
             // Skip first 2 lines (semester info and headers)
-            for (int i = 2; i < lines.size(); i++) {
-                String line = lines.get(i).trim();
-                if (line.isEmpty()) continue;
-                
-                String[] parts = line.split(",");
-                if (parts.length >= 7) {
-                    try {
-                        String courseCode = parts[0].trim();
-                        String courseTitle = parts[1].trim();
-                        int units = Integer.parseInt(parts[2].trim());
-                        String section = parts[3].trim();
-                        String times = parts[4].trim();
-                        String days = parts[5].trim();
-                        String rooms = parts[6].trim();
-                        
-                        courses.add(new Course(courseCode, courseTitle, units, section, times, days, rooms));
-                    } catch (NumberFormatException e) {
-                        System.out.println("Skipping invalid line: " + line);
-                    }
+            csv.skipRecords(2, parts);
+            while (csv.readRecord(parts)) {
+                if (parts.size() < 7) {
+                    continue;
+                }
+                List<String> key;
+                try {
+                    key = offeringRowKey(parts);
+                } catch (NumberFormatException e) {
+                    System.out.println("Skipping invalid line " + csv.getLineNumber() + ": " + parts);
+                    continue;
+                }
+                Course course = previous.get(key);
+                if (course == null) {
+                    // Pooled: titles, times, days and rooms repeat across sections
+                    String courseCode = StringPool.intern(key.get(0));
+                    String courseTitle = StringPool.intern(key.get(1));
+                    int units = Integer.parseInt(key.get(2));
+                    String section = StringPool.intern(key.get(3));
+                    String times = StringPool.intern(key.get(4));
+                    String days = StringPool.intern(key.get(5));
+                    String rooms = StringPool.intern(key.get(6));
+
+                    course = new Course(courseCode, courseTitle, units, section, times, days, rooms);
+                }
+                courses.add(course);
+                if (rows != null) {
+                    rows.put(key, course);
                 }
             }
         } catch (IOException e) {
@@ -98,44 +199,57 @@ public class FileManager {
         return courses;
     }
 
-    // Loads curriculum courses for a specific program with descriptions.
-    public List<Course> loadProgramCourses(String program) {
-        // Determine which CSV file based on program
-        Path coursePath;
+    // Key for reusing an offerings row's Course: the seven fields as the Course holds them (trimmed,
+    // units as a plain number), so the key of a row and the key of the Course parsed from it are equal
+    static List<String> offeringRowKey(List<String> parts) {
+        return Arrays.asList(parts.get(0).trim(), parts.get(1).trim(),
+                String.valueOf(Integer.parseInt(parts.get(2).trim())), parts.get(3).trim(), parts.get(4).trim(),
+                parts.get(5).trim(), parts.get(6).trim());
+    }
+
+    static List<String> offeringRowKey(Course course) {
+        return Arrays.asList(course.getCourseCode(), course.getCourseTitle(), String.valueOf(course.getUnits()),
+                course.getSection(), course.getTimes(), course.getDays(), course.getRooms());
+    }
+
+    // Determine which CSV file based on program; null for an unknown program
+    static Path getProgramCoursesPath(String program) {
         if (program.equals("BS Computer Science")) {
-            coursePath = CMSC_COURSES_PATH;
+            return CMSC_COURSES_PATH;
         } else if (program.equals("MS Computer Science")) {
-            coursePath = MSCS_COURSES_PATH;
+            return MSCS_COURSES_PATH;
         } else if (program.equals("Master of Information Technology")) {
-            coursePath = MIT_COURSES_PATH;
+            return MIT_COURSES_PATH;
         } else if (program.equals("PhD Computer Science")) {
-            coursePath = PHD_COURSES_PATH;
-        } else {
+            return PHD_COURSES_PATH;
+        }
+        return null;
+    }
+
+    // Loads curriculum courses for a specific program with descriptions.
+    public List<Course> loadProgramCourses(String program) {
+        Path coursePath = getProgramCoursesPath(program);
+        if (coursePath == null) {
             return new ArrayList<>();
         }
 
         List<Course> courses = new ArrayList<>();
-        try {
-            // Read entire file as list of lines
-            List<String> lines = Files.readAllLines(coursePath);
-            
-            // Skip first line (headers)
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i).trim();
-                if (line.isEmpty()) continue;
-                
-                // Use special parser for quoted fields with commas
-                List<String> parts = parseCSVLine(line);
+        List<String> parts = new ArrayList<>();
+        try (CsvReader csv = CsvReader.open(coursePath)) {
+            // Skip first line (headers); descriptions are quoted and contain commas
+            csv.skipRecords(1, parts);
+            while (csv.readRecord(parts)) {
                 if (parts.size() >= 4) {
                     try {
-                        String courseCode = parts.get(0).trim().replace("\"", "");
-                        String courseName = parts.get(1).trim().replace("\"", "");
+                        // Pooled: the same courses appear in several programs and in the offerings
+                        String courseCode = StringPool.intern(parts.get(0).trim());
+                        String courseName = StringPool.intern(parts.get(1).trim());
                         int units = Integer.parseInt(parts.get(2).trim());
-                        String description = parts.get(3).trim().replace("\"", "");
-                        
+                        String description = StringPool.intern(parts.get(3).trim());
+
                         courses.add(new Course(courseCode, courseName, units, description));
                     } catch (NumberFormatException e) {
-                        System.out.println("Skipping invalid line: " + line);
+                        System.out.println("Skipping invalid line " + csv.getLineNumber() + ": " + parts);
                     }
                 }
             }
@@ -148,17 +262,18 @@ public class FileManager {
     // ADDED LOAD FUNCTINOS FOR CALENDAR
     public List<String[]> loadAcademicCalendar() {
         List<String[]> calendarData = new ArrayList<>();
-        
-        try {
-            List<String> lines = Files.readAllLines(CALENDAR_PATH);
-            
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i).trim();
-                if (line.isEmpty()) continue;
-                
-                String[] parts = line.split(",", -1);
-                if (parts.length >= 4) {
-                    calendarData.add(parts);
+        List<String> parts = new ArrayList<>();
+
+        // Some event names are quoted and span two lines
+        try (CsvReader csv = CsvReader.open(CALENDAR_PATH)) {
+            csv.skipRecords(1, parts);
+            while (csv.readRecord(parts)) {
+                if (parts.size() >= 4) {
+                    String[] row = new String[parts.size()];
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] = parts.get(i).trim();
+                    }
+                    calendarData.add(row);
                 }
             }
         } catch (IOException e) {
@@ -171,17 +286,13 @@ public class FileManager {
 
     public List<String[]> loadHolidays() {
         List<String[]> holidaysData = new ArrayList<>();
-        
-        try {
-            List<String> lines = Files.readAllLines(HOLIDAYS_PATH);
-            
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i).trim();
-                if (line.isEmpty()) continue;
-                
-                String[] parts = line.split(",", -1);
-                if (parts.length >= 3) {
-                    String[] row = {parts[0].trim(), parts[1].trim(), parts[2].trim()};
+        List<String> parts = new ArrayList<>();
+
+        try (CsvReader csv = CsvReader.open(HOLIDAYS_PATH)) {
+            csv.skipRecords(1, parts);
+            while (csv.readRecord(parts)) {
+                if (parts.size() >= 3) {
+                    String[] row = {parts.get(0).trim(), parts.get(1).trim(), parts.get(2).trim()};
                     holidaysData.add(row);
                 }
             }
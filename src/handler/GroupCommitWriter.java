@@ -0,0 +1,143 @@
+package handler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Appends records to files durably, coalescing appends that arrive close together.
+// The first caller for a file becomes the leader of a batch: it waits one commit window for other
+// callers to add their records, then writes the whole batch with a single force(). Everyone in the
+// batch returns once that force() has completed, so a burst of logouts pays for one fsync.
+// While writing, the leader holds a FileLock on the file, so the offsets it reports stay correct when
+// other processes append to the same file.
+public class GroupCommitWriter {
+    private final long commitWindowMillis;
+    private final Map<Path, Batch> openBatches = new HashMap<>();
+    private final Map<Path, Object> fileLocks = new HashMap<>();
+
+    public GroupCommitWriter(long commitWindowMillis) {
+        this.commitWindowMillis = commitWindowMillis;
+    }
+
+    // Returns the file offset the record was written at, after the record is on disk
+    public long append(Path path, byte[] record) throws IOException {
+        Batch batch;
+        boolean leader;
+        int position;
+        synchronized (openBatches) {
+            batch = openBatches.get(path);
+            leader = (batch == null);
+            if (leader) {
+                batch = new Batch();
+                openBatches.put(path, batch);
+            }
+            position = batch.records.size();
+            batch.records.add(record);
+        }
+
+        if (leader) {
+            waitForCommitWindow();
+            synchronized (openBatches) {
+                openBatches.remove(path);
+            }
+            commit(path, batch);
+        }
+        batch.awaitCommit();
+        return batch.offsets[position];
+    }
+
+    // Always completes the batch, even if the write fails with an unchecked exception, so the
+    // callers waiting in awaitCommit() are woken with an error instead of hanging. An Error (out of
+    // memory, say) wakes them too and then carries on up the leader's stack.
+    private void commit(Path path, Batch batch) {
+        Throwable failure = null;
+        // Batches for the same file are written one at a time so their records never interleave
+        synchronized (fileLock(path)) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                channel.lock(); // released when the channel is closed
+                ByteBuffer[] buffers = new ByteBuffer[batch.records.size()];
+                long[] offsets = new long[buffers.length];
+                long offset = channel.size();
+                for (int i = 0; i < buffers.length; i++) {
+                    buffers[i] = ByteBuffer.wrap(batch.records.get(i));
+                    offsets[i] = offset;
+                    offset += buffers[i].remaining();
+                }
+                batch.offsets = offsets;
+                while (hasRemaining(buffers)) {
+                    channel.write(buffers);
+                }
+                channel.force(true);
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            } catch (Error e) {
+                batch.complete(e);
+                throw e;
+            }
+        }
+        batch.complete(failure);
+    }
+
+    private Object fileLock(Path path) {
+        synchronized (fileLocks) {
+            return fileLocks.computeIfAbsent(path, p -> new Object());
+        }
+    }
+
+    private void waitForCommitWindow() {
+        if (commitWindowMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(commitWindowMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Batch {
+        private final List<byte[]> records = new ArrayList<>();
+        private long[] offsets;
+        private boolean committed;
+        private Throwable failure;
+
+        synchronized void complete(Throwable failure) {
+            this.failure = failure;
+            this.committed = true;
+            notifyAll();
+        }
+
+        synchronized void awaitCommit() throws IOException {
+            boolean interrupted = false;
+            while (!committed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw new IOException("Group commit failed", failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package handler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+import model.Student;
+
+// User store for large deployments: both files are memory-mapped, so looking up an email probes the
+// mapped index directly instead of building a Java map of every account at startup.
+//
+// index.map   header, then an open-addressing hash table of fixed-size entries
+//             [slot + 1 (0 = empty)][email hash][email length][email bytes]
+// records.dat fixed-size slots; a record is a chain of slots, each [next slot][bytes used][data],
+//             and the first slot's data starts with [record length][crc32]
+//
+// A save writes the new record into free slots, points the index entry at it and then returns the
+// old chain to the free list, so records are updated in place without the file growing on every
+// save. The new record is forced before the entry points at it, for new accounts as well as
+// overwritten ones, so an entry on disk only ever points at a complete record. When an account is
+// overwritten the entry is also forced before the old chain is freed, so a crash can at worst leak
+// the slots being moved.
+//
+// Free lists and index growth live in the mappings, which other processes cannot coordinate on, so
+// only one planner instance may open the store at a time; shared machines use ShardedUserStore.
+public class MappedUserStore implements UserStore {
+    private static final int MAGIC = 0x55534D31; // "USM1"
+    private static final int VERSION = 1;
+
+    // Index header fields
+    private static final int HEADER_SIZE = 64;
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_CAPACITY = 8;
+    private static final int H_COUNT = 12;
+    private static final int H_SLOT_COUNT = 16;
+    private static final int H_FREE_HEAD = 20;
+
+    // Index entry layout
+    private static final int ENTRY_SIZE = 80;
+    private static final int E_SLOT = 0;
+    private static final int E_HASH = 4;
+    private static final int E_EMAIL_LENGTH = 8;
+    private static final int E_EMAIL = 10;
+    private static final int MAX_EMAIL_BYTES = ENTRY_SIZE - E_EMAIL;
+
+    // Record slot layout
+    private static final int SLOT_SIZE = 256;
+    private static final int SLOT_HEADER = 8;
+    private static final int SLOT_DATA = SLOT_SIZE - SLOT_HEADER;
+    private static final int RECORD_HEADER = 8;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final int NO_SLOT = -1;
+
+    private final Path indexPath;
+    private final Path recordsPath;
+    private final StudentCodec codec;
+
+    private FileChannel indexChannel;
+    private FileChannel recordsChannel;
+    private MappedByteBuffer index;
+    private MappedByteBuffer records;
+
+    // Held for as long as the store is open, by one instance only
+    private FileChannel lockChannel;
+    private FileLock instanceLock;
+
+    public MappedUserStore(Path directory, StudentCodec codec) {
+        this.indexPath = directory.resolve("index.map");
+        this.recordsPath = directory.resolve("records.dat");
+        this.codec = codec;
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve("store.lock"), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            try {
+                instanceLock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                instanceLock = null; // already open in this process
+            }
+            if (instanceLock == null) {
+                lockChannel.close();
+                throw new IllegalStateException("The mapped user store at " + directory
+                        + " is already open in another planner instance; use the default sharded store"
+                        + " to run several instances on one machine");
+            }
+            openIndex();
+            recordsChannel = FileChannel.open(recordsPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            mapRecords(Math.max(index.getInt(H_SLOT_COUNT), INITIAL_SLOTS));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open user store at " + directory, e);
+        }
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return index.getInt(H_COUNT) == 0;
+    }
+
+    @Override
+    public synchronized boolean contains(String email) {
+        byte[] key = keyBytes(email);
+        return key != null && index.getInt(entryOffset(probe(key, hash(key))) + E_SLOT) != 0;
+    }
+
+    @Override
+    public synchronized int size() {
+        return index.getInt(H_COUNT);
+    }
+
+    @Override
+    public synchronized Student find(String email) {
+        byte[] key = keyBytes(email);
+        if (key == null) {
+            return null;
+        }
+        int slot = index.getInt(entryOffset(probe(key, hash(key))) + E_SLOT) - 1;
+        return (slot == NO_SLOT) ? null : readRecordOrSkip(slot);
+    }
+
+    @Override
+    public synchronized void save(Student student) throws IOException {
+        Student current = find(student.getEmail());
+        student.setVersion((current == null) ? 1 : current.getVersion() + 1);
+        write(student);
+        records.force();
+        index.force();
+    }
+
+    @Override
+    public synchronized boolean compareAndSave(Student student, long expectedVersion) throws IOException {
+        Student current = find(student.getEmail());
+        long currentVersion = (current == null) ? 0 : current.getVersion();
+        if (currentVersion != expectedVersion) {
+            return false;
+        }
+        student.setVersion(expectedVersion + 1);
+        write(student);
+        records.force();
+        index.force();
+        return true;
+    }
+
+    // Each record is forced before its entry is published; the entries are forced once at the end
+    @Override
+    public synchronized void importUsers(Collection<Student> users) throws IOException {
+        for (Student student : users) {
+            write(student);
+        }
+        records.force();
+        index.force();
+    }
+
+    // Walks the index table in order, decoding one record per step. A registration that makes the
+    // table grow during the scan rehashes the entries, so the scan may then see a student twice or miss one.
+    @Override
+    public Stream<Student> stream() {
+        Iterator<Student> iterator = new Iterator<Student>() {
+            private int entry;
+            private Student next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    next = advance();
+                }
+                return next != null;
+            }
+
+            @Override
+            public Student next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Student student = next;
+                next = null;
+                return student;
+            }
+
+            private Student advance() {
+                synchronized (MappedUserStore.this) {
+                    int capacity = index.getInt(H_CAPACITY);
+                    while (entry < capacity) {
+                        int slot = index.getInt(entryOffset(entry++) + E_SLOT) - 1;
+                        if (slot != NO_SLOT) {
+                            Student student = readRecordOrSkip(slot);
+                            if (student != null) {
+                                return student;
+                            }
+                        }
+                    }
+                    return null;
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // Every save is already forced to disk, so there is nothing to catch up on
+    @Override
+    public synchronized void checkpoint() {
+        index.force();
+        records.force();
+    }
+
+    private void write(Student student) throws IOException {
+        byte[] key = keyBytes(student.getEmail());
+        if (key == null) {
+            throw new IOException("Email too long for mapped user store: " + student.getEmail());
+        }
+        if ((index.getInt(H_COUNT) + 1) * 10L > index.getInt(H_CAPACITY) * 7L) {
+            growIndex();
+        }
+
+        int hash = hash(key);
+        int entry = entryOffset(probe(key, hash));
+        int oldSlot = index.getInt(entry + E_SLOT) - 1;
+        int newSlot = writeRecord(codec.encode(student));
+        // The new record is on disk before the entry points at it. Otherwise a crash could leave a
+        // new account's entry on a torn record: registered, yet never readable or registrable again.
+        records.force();
+
+        if (oldSlot == NO_SLOT) {
+            index.putInt(entry + E_HASH, hash);
+            index.putShort(entry + E_EMAIL_LENGTH, (short) key.length);
+            index.put(entry + E_EMAIL, key);
+            index.putInt(H_COUNT, index.getInt(H_COUNT) + 1);
+            index.putInt(entry + E_SLOT, newSlot + 1);
+            return;
+        }
+        // The entry is on disk before freeing the old chain rewrites its next-slot links
+        index.putInt(entry + E_SLOT, newSlot + 1);
+        index.force();
+        freeChain(oldSlot);
+    }
+
+    // Linear probing; returns the entry holding the key, or the empty entry where it would go
+    private int probe(byte[] key, int hash) {
+        int capacity = index.getInt(H_CAPACITY);
+        int i = hash & (capacity - 1);
+        while (true) {
+            int entry = entryOffset(i);
+            if (index.getInt(entry + E_SLOT) == 0) {
+                return i;
+            }
+            if (index.getInt(entry + E_HASH) == hash && keyEquals(entry, key)) {
+                return i;
+            }
+            i = (i + 1) & (capacity - 1);
+        }
+    }
+
+    // Compares against the email stored in the mapped entry without copying it out
+    private boolean keyEquals(int entry, byte[] key) {
+        if (index.getShort(entry + E_EMAIL_LENGTH) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (index.get(entry + E_EMAIL + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A record that cannot be decoded is reported and treated as missing
+    private Student readRecordOrSkip(int firstSlot) {
+        try {
+            return readRecord(firstSlot);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Every slot number, length and used count is checked against the file before it is followed,
+    // so a corrupt chain fails with an IOException instead of reading outside the mapping
+    private Student readRecord(int firstSlot) throws IOException {
+        int slotCount = index.getInt(H_SLOT_COUNT);
+        if (firstSlot < 0 || firstSlot >= slotCount) {
+            throw corrupt(firstSlot, "points outside records.dat");
+        }
+        int base = slotOffset(firstSlot);
+        int length = records.getInt(base + SLOT_HEADER);
+        long checksum = records.getInt(base + SLOT_HEADER + 4) & 0xFFFFFFFFL;
+        if (length < 0 || length > (long) slotCount * SLOT_DATA - RECORD_HEADER) {
+            throw corrupt(firstSlot, "has an invalid length " + length);
+        }
+
+        byte[] data = new byte[length];
+        int copied = 0;
+        int slot = firstSlot;
+        int skip = RECORD_HEADER;
+        int visited = 0;
+        while (copied < length) {
+            if (slot < 0 || slot >= slotCount || ++visited > slotCount) {
+                throw corrupt(firstSlot, "has a broken slot chain");
+            }
+            int offset = slotOffset(slot);
+            int used = records.getInt(offset + 4);
+            if (used < skip || used > SLOT_DATA) {
+                throw corrupt(firstSlot, "has an invalid slot size " + used);
+            }
+            int count = Math.min(used - skip, length - copied);
+            records.get(offset + SLOT_HEADER + skip, data, copied, count);
+            copied += count;
+            skip = 0;
+            slot = records.getInt(offset);
+        }
+        if (crc(data) != checksum) {
+            throw corrupt(firstSlot, "fails its checksum");
+        }
+        return codec.decode(data, 0, length);
+    }
+
+    private IOException corrupt(int slot, String problem) {
+        return new IOException("Corrupt user record in slot " + slot + " of " + recordsPath + ": " + problem);
+    }
+
+    // Writes the record into a chain of slots taken from the free list and returns the first slot
+    private int writeRecord(byte[] data) throws IOException {
+        int total = RECORD_HEADER + data.length;
+        int slotsNeeded = (total + SLOT_DATA - 1) / SLOT_DATA;
+        int[] chain = new int[slotsNeeded];
+        for (int i = 0; i < slotsNeeded; i++) {
+            chain[i] = allocateSlot();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        header.putInt(data.length).putInt((int) crc(data));
+        int written = 0;
+        for (int i = 0; i < slotsNeeded; i++) {
+            int offset = slotOffset(chain[i]);
+            int used = Math.min(SLOT_DATA, total - written);
+            records.putInt(offset, (i + 1 < slotsNeeded) ? chain[i + 1] : NO_SLOT);
+            records.putInt(offset + 4, used);
+            int position = offset + SLOT_HEADER;
+            int end = position + used;
+            if (i == 0) {
+                records.put(position, header.array());
+                position += RECORD_HEADER;
+            }
+            int fromData = (i == 0) ? 0 : written - RECORD_HEADER;
+            records.put(position, data, fromData, end - position);
+            written += used;
+        }
+        return chain[0];
+    }
+
+    private int allocateSlot() throws IOException {
+        int free = index.getInt(H_FREE_HEAD) - 1;
+        if (free != NO_SLOT) {
+            index.putInt(H_FREE_HEAD, records.getInt(slotOffset(free)) + 1);
+            return free;
+        }
+        int slot = index.getInt(H_SLOT_COUNT);
+        if ((long) (slot + 1) * SLOT_SIZE > records.capacity()) {
+            mapRecords(slot * 2);
+        }
+        index.putInt(H_SLOT_COUNT, slot + 1);
+        return slot;
+    }
+
+    private void freeChain(int slot) {
+        while (slot != NO_SLOT) {
+            int offset = slotOffset(slot);
+            int next = records.getInt(offset);
+            records.putInt(offset, index.getInt(H_FREE_HEAD) - 1);
+            index.putInt(H_FREE_HEAD, slot + 1);
+            slot = next;
+        }
+    }
+
+    private void openIndex() throws IOException {
+        boolean created = !Files.exists(indexPath);
+        if (created) {
+            createIndex(indexPath, INITIAL_CAPACITY);
+        }
+        indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+        if (index.getInt(H_MAGIC) != MAGIC || index.getInt(H_VERSION) != VERSION) {
+            throw new IOException("Not a user index file: " + indexPath);
+        }
+    }
+
+    // Rehashes every entry into an index twice the size, built next to the old one and renamed over it
+    private void growIndex() throws IOException {
+        int oldCapacity = index.getInt(H_CAPACITY);
+        int newCapacity = oldCapacity * 2;
+        Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + ".grow");
+        createIndex(tempPath, newCapacity);
+
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer grown = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            grown.putInt(H_COUNT, index.getInt(H_COUNT));
+            grown.putInt(H_SLOT_COUNT, index.getInt(H_SLOT_COUNT));
+            grown.putInt(H_FREE_HEAD, index.getInt(H_FREE_HEAD));
+            byte[] entryBytes = new byte[ENTRY_SIZE];
+            for (int i = 0; i < oldCapacity; i++) {
+                int from = entryOffset(i);
+                if (index.getInt(from + E_SLOT) == 0) continue;
+                int j = index.getInt(from + E_HASH) & (newCapacity - 1);
+                while (grown.getInt(HEADER_SIZE + j * ENTRY_SIZE + E_SLOT) != 0) {
+                    j = (j + 1) & (newCapacity - 1);
+                }
+                index.get(from, entryBytes);
+                grown.put(HEADER_SIZE + j * ENTRY_SIZE, entryBytes);
+            }
+            grown.force();
+        }
+
+        records.force();
+        indexChannel.close();
+        Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        AtomicFiles.forceDirectory(indexPath.toAbsolutePath().getParent());
+        openIndex();
+    }
+
+    private static void createIndex(Path path, int capacity) throws IOException {
+        long size = HEADER_SIZE + (long) capacity * ENTRY_SIZE;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            header.putInt(H_MAGIC, MAGIC);
+            header.putInt(H_VERSION, VERSION);
+            header.putInt(H_CAPACITY, capacity);
+            header.putInt(H_COUNT, 0);
+            header.putInt(H_SLOT_COUNT, 0);
+            header.putInt(H_FREE_HEAD, 0);
+            header.force();
+        }
+    }
+
+    // Maps records.dat with room for at least the given number of slots, growing the file if needed
+    private void mapRecords(int slots) throws IOException {
+        long size = Math.max((long) slots * SLOT_SIZE, recordsChannel.size());
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("User records file is full: " + recordsPath);
+        }
+        if (records != null) {
+            records.force();
+        }
+        records = recordsChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static byte[] keyBytes(String email) {
+        byte[] key = UserStore.normalizeEmail(email).getBytes(StandardCharsets.UTF_8);
+        return (key.length > MAX_EMAIL_BYTES) ? null : key;
+    }
+
+    private static int hash(byte[] key) {
+        int h = 0;
+        for (byte b : key) {
+            h = 31 * h + b;
+        }
+        // Spread the bits so that masking by the capacity uses more than the low ones
+        return h ^ (h >>> 16);
+    }
+
+    private static int entryOffset(int entry) {
+        return HEADER_SIZE + entry * ENTRY_SIZE;
+    }
+
+    private static int slotOffset(int slot) {
+        return slot * SLOT_SIZE;
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+}
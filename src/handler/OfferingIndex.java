@@ -0,0 +1,117 @@
+package handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import model.Course;
+
+// Lookups over one load of the course offerings, built once so enlistment and the program filter
+// do not scan the catalog or split section strings:
+//   offering ID      -> the catalog's Course, for canonical()
+//   course code      -> its sections
+//   lecture section  -> its lab sections ("CMSC 12 G" -> G-1L, G-2L, ...)
+//   lab section      -> the lecture section it belongs to
+//   program          -> the offerings of its curriculum courses, in catalog order
+// Lists are unmodifiable and the index never changes; CatalogCache builds a new one when the
+// offerings or a program's courses change.
+public class OfferingIndex {
+    private final List<Course> offerings;
+    private final Map<Course, Course> byId = new HashMap<>();
+    private final Map<String, List<Course>> byCode = new HashMap<>();
+    private final Map<String, List<Course>> labsByLecture = new HashMap<>();
+    private final Map<Course, String> lectureSections = new IdentityHashMap<>();
+    private final Map<String, Set<String>> programCodes;
+    private final Map<String, List<Course>> byProgram = new HashMap<>();
+
+    // programCodes: each program's curriculum course codes (CatalogCache.getProgramCourseCodes)
+    public OfferingIndex(List<Course> offerings, Map<String, Set<String>> programCodes) {
+        this.offerings = offerings;
+        this.programCodes = programCodes;
+        for (Course course : offerings) {
+            byId.putIfAbsent(course, course);
+            byCode.computeIfAbsent(course.getCourseCode(), code -> new ArrayList<>()).add(course);
+            String lecture = lectureSection(course.getSection());
+            lectureSections.put(course, lecture);
+            if (course.getSection().indexOf('-') >= 0) {
+                labsByLecture.computeIfAbsent(course.getCourseCode() + " " + lecture, key -> new ArrayList<>()).add(course);
+            }
+        }
+        for (Map.Entry<String, List<Course>> sections : byCode.entrySet()) {
+            sections.setValue(Collections.unmodifiableList(sections.getValue()));
+        }
+        for (Map.Entry<String, List<Course>> labs : labsByLecture.entrySet()) {
+            labs.setValue(Collections.unmodifiableList(labs.getValue()));
+        }
+        for (Map.Entry<String, Set<String>> program : programCodes.entrySet()) {
+            List<Course> eligible = new ArrayList<>();
+            for (Course course : offerings) {
+                if (program.getValue().contains(course.getCourseCode())) {
+                    eligible.add(course);
+                }
+            }
+            byProgram.put(program.getKey(), Collections.unmodifiableList(eligible));
+        }
+    }
+
+    List<Course> getOfferings() {
+        return offerings;
+    }
+
+    Map<String, Set<String>> getProgramCodes() {
+        return programCodes;
+    }
+
+    // The catalog's instance of the course if it has the same details, so copies read back from a
+    // file share the catalog's; otherwise the course itself (e.g. a section the registrar has moved)
+    public Course canonical(Course course) {
+        Course offering = byId.get(course);
+        return (offering != null && offering.hasSameDetails(course)) ? offering : course;
+    }
+
+    // Every section of the course; empty if it is not offered
+    public List<Course> getSections(String courseCode) {
+        return byCode.getOrDefault(courseCode, Collections.emptyList());
+    }
+
+    // The catalog's section of the course with that section name, or null if it is not offered
+    public Course getOffering(String courseCode, String section) {
+        for (Course course : getSections(courseCode)) {
+            if (course.getSection().equals(section)) {
+                return course;
+            }
+        }
+        return null;
+    }
+
+    // Lab sections under the lecture ("G" -> G-1L, G-2L); empty for a lab or a lecture without labs
+    public List<Course> getLabs(String courseCode, String lectureSection) {
+        return labsByLecture.getOrDefault(courseCode + " " + lectureSection, Collections.emptyList());
+    }
+
+    // Offerings of the program's curriculum courses; empty for an unknown program
+    public List<Course> getProgramOfferings(String program) {
+        return byProgram.getOrDefault(program, Collections.emptyList());
+    }
+
+    // Whether the section's course is in the program's curriculum
+    public boolean isEligible(String program, Course course) {
+        Set<String> codes = programCodes.get(program);
+        return codes != null && codes.contains(course.getCourseCode());
+    }
+
+    // The lecture section a lab belongs to ("G-1L" -> "G"); a lecture's own section
+    public String getLectureSection(Course course) {
+        String lecture = lectureSections.get(course);
+        return (lecture != null) ? lecture : lectureSection(course.getSection());
+    }
+
+    // Lab sections are named after their lecture; a lecture's section is returned as is
+    private static String lectureSection(String section) {
+        int dash = section.indexOf('-');
+        return (dash < 0) ? section : StringPool.intern(section.substring(0, dash));
+    }
+}
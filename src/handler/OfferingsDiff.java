@@ -0,0 +1,89 @@
+package handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import model.Course;
+import model.Student;
+
+// What changed between two loads of course_offerings.csv. Sections are matched by course code and
+// section ("CMSC 12 G"); a section whose title, units, times, days or rooms changed is modified.
+public class OfferingsDiff {
+    private final List<Course> added = new ArrayList<>();
+    private final List<Course> removed = new ArrayList<>();
+    private final Map<Course, Course> modified = new LinkedHashMap<>(); // old -> new
+
+    private OfferingsDiff() {
+    }
+
+    public static OfferingsDiff between(List<Course> before, List<Course> after) {
+        OfferingsDiff diff = new OfferingsDiff();
+        Map<String, Course> old = new HashMap<>();
+        for (Course course : before) {
+            old.put(sectionKey(course), course);
+        }
+        for (Course course : after) {
+            Course previous = old.remove(sectionKey(course));
+            if (previous == null) {
+                diff.added.add(course);
+            } else if (previous != course && !previous.hasSameDetails(course)) {
+                diff.modified.put(previous, course);
+            }
+        }
+        diff.removed.addAll(old.values());
+        return diff;
+    }
+
+    public static String sectionKey(Course course) {
+        return course.getOfferingId();
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && modified.isEmpty();
+    }
+
+    public List<Course> getAdded() { return Collections.unmodifiableList(added); }
+    public List<Course> getRemoved() { return Collections.unmodifiableList(removed); }
+    public Map<Course, Course> getModified() { return Collections.unmodifiableMap(modified); }
+
+    // Sections in the student's saved schedules that were removed or changed, by schedule name
+    public Map<String, List<Course>> affectedSections(Student student) {
+        Map<String, Course> changed = new HashMap<>();
+        for (Course course : removed) {
+            changed.put(sectionKey(course), course);
+        }
+        for (Course course : modified.keySet()) {
+            changed.put(sectionKey(course), course);
+        }
+
+        Map<String, List<Course>> affected = new LinkedHashMap<>();
+        for (String name : student.getSavedScheduleNames()) {
+            for (Course course : student.getSchedule(name)) {
+                if (changed.containsKey(sectionKey(course))) {
+                    affected.computeIfAbsent(name, n -> new ArrayList<>()).add(course);
+                }
+            }
+        }
+        return affected;
+    }
+
+    // What happened to a section, for messages: "removed" or the new times/days/rooms
+    public String describe(Course course) {
+        String key = sectionKey(course);
+        for (Map.Entry<Course, Course> change : modified.entrySet()) {
+            if (sectionKey(change.getKey()).equals(key)) {
+                Course now = change.getValue();
+                return "now " + now.getTimes() + " " + now.getDays() + " in " + now.getRooms();
+            }
+        }
+        return "removed";
+    }
+
+    @Override
+    public String toString() {
+        return added.size() + " added, " + removed.size() + " removed, " + modified.size() + " modified";
+    }
+}
@@ -0,0 +1,194 @@
+package handler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import model.Student;
+
+// Single background writer for student saves.
+// UI code calls markDirty() after an edit; the service keeps a detached copy per student, waits until
+// edits have been quiet for the debounce window, and writes the latest copies off the FX thread.
+// Repeated edits to the same student collapse into one pending save. When maxPending different
+// students are already waiting, markDirty() blocks until the writer catches up.
+// Saves go through StudentSync, so edits saved by another session meanwhile are merged, not overwritten.
+public class PersistenceService {
+    // Edits that keep coming never delay a save longer than this many debounce windows
+    private static final int MAX_DEBOUNCE_WINDOWS = 5;
+
+    private final UserStore store;
+    private final StudentSync sync;
+    private final long debounceMillis;
+    private final int maxPending;
+
+    private final Object lock = new Object();
+    private final Map<String, Student> pending = new LinkedHashMap<>();
+    private long lastChangeMillis;
+    private long firstChangeMillis;
+    private boolean flushRequested;
+    private boolean stopping;
+    private int inFlight;
+
+    private final Thread writer;
+
+    public PersistenceService(UserStore store, long debounceMillis, int maxPending) {
+        this.store = store;
+        this.sync = new StudentSync(store);
+        this.debounceMillis = debounceMillis;
+        this.maxPending = maxPending;
+
+        this.writer = new Thread(this::runWriter, "student-autosave");
+        this.writer.setDaemon(true);
+        this.writer.start();
+
+        // Runs on System.exit() and normal JVM shutdown so queued edits are not lost
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "student-autosave-flush"));
+    }
+
+    // Queues the student's current state for saving
+    public void markDirty(Student student) {
+        Student copy = new Student(student);
+        String key = UserStore.normalizeEmail(student.getEmail());
+
+        synchronized (lock) {
+            while (!stopping && pending.size() >= maxPending && !pending.containsKey(key)) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (stopping) {
+                saveNow(copy);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (pending.isEmpty()) {
+                firstChangeMillis = now;
+            }
+            pending.put(key, copy);
+            lastChangeMillis = now;
+            lock.notifyAll();
+        }
+    }
+
+    // Records the state a session starts from, so later saves only apply that session's own changes
+    public void track(Student loaded) {
+        sync.track(loaded);
+    }
+
+    // Latest unsaved state of a student, so a login right after logout sees its own edits
+    public Student getPending(String email) {
+        synchronized (lock) {
+            Student copy = pending.get(UserStore.normalizeEmail(email));
+            return (copy == null) ? null : new Student(copy);
+        }
+    }
+
+    // Skips the debounce window and writes everything pending without waiting for it
+    public void requestFlush() {
+        synchronized (lock) {
+            flushRequested = true;
+            lock.notifyAll();
+        }
+    }
+
+    // Writes everything pending and waits until it is on disk
+    public void flush() {
+        synchronized (lock) {
+            flushRequested = true;
+            lock.notifyAll();
+            while ((!pending.isEmpty() || inFlight > 0) && writer.isAlive()) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Flushes, stops the writer and checkpoints the store's index. Safe to call more than once.
+    public void shutdown() {
+        synchronized (lock) {
+            if (stopping) {
+                return;
+            }
+            stopping = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        store.checkpoint();
+    }
+
+    private void runWriter() {
+        while (true) {
+            List<Student> batch;
+            synchronized (lock) {
+                try {
+                    while (!stopping && !readyToWrite()) {
+                        if (pending.isEmpty()) {
+                            lock.wait();
+                        } else {
+                            lock.wait(Math.max(1, millisUntilDue()));
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    stopping = true;
+                }
+                if (pending.isEmpty()) {
+                    if (stopping) {
+                        lock.notifyAll();
+                        return;
+                    }
+                    continue;
+                }
+                batch = new ArrayList<>(pending.values());
+                inFlight = batch.size();
+                flushRequested = false;
+            }
+
+            for (Student student : batch) {
+                saveNow(student);
+            }
+
+            synchronized (lock) {
+                // Entries replaced by a newer edit while writing stay pending for the next round
+                for (Student student : batch) {
+                    pending.remove(UserStore.normalizeEmail(student.getEmail()), student);
+                }
+                inFlight = 0;
+                if (!pending.isEmpty()) {
+                    firstChangeMillis = System.currentTimeMillis();
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private boolean readyToWrite() {
+        return !pending.isEmpty() && (flushRequested || millisUntilDue() <= 0);
+    }
+
+    private long millisUntilDue() {
+        long now = System.currentTimeMillis();
+        long quietDue = lastChangeMillis + debounceMillis;
+        long maxDue = firstChangeMillis + debounceMillis * MAX_DEBOUNCE_WINDOWS;
+        return Math.min(quietDue, maxDue) - now;
+    }
+
+    private void saveNow(Student student) {
+        try {
+            sync.save(student);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
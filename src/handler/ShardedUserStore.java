@@ -0,0 +1,781 @@
+package handler;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import model.Student;
+
+// Stores students in hash buckets keyed by email, each bucket being its own append-only journal.
+// Saving or looking up one student only touches that student's bucket, and saves to different
+// buckets never rewrite each other's data.
+//
+// The index keeps each email's bucket and the offset of its latest record, so a lookup is a single
+// record read and startup never decodes full student records. index.txt is a checkpoint of that
+// index; records appended after the last checkpoint are picked up by scanning the bucket tails.
+//
+// Several planner instances can share the store. They coordinate through store.lock (see StoreLocks):
+// appends and reads hold their bucket's region shared, compaction holds it exclusively, and saves of
+// one email are serialized across instances by a key region. Each instance remembers how far it has
+// indexed every bucket and catches up on records the others appended before looking a bucket up.
+public class ShardedUserStore implements UserStore {
+    public static final int BUCKET_COUNT = 64;
+    private static final String INDEX_FILE = "index.txt";
+    private static final String INDEX_HEADER = "# user index v2";
+
+    // A bucket is compacted when it holds this many more records than live students
+    private static final int COMPACT_SLACK = 32;
+
+    // Saves between index checkpoints; bounds how much journal tail startup has to scan
+    private static final int CHECKPOINT_INTERVAL = 1024;
+
+    // Saves of the same email are serialized so a version check and its append happen together
+    private static final int KEY_LOCK_STRIPES = 256;
+
+    // Regions of store.lock: one per bucket, then the checkpoint, then one per key lock stripe.
+    // Counter b holds how many times bucket b has been compacted.
+    private static final String LOCK_FILE = "store.lock";
+    private static final int CHECKPOINT_REGION = BUCKET_COUNT;
+    private static final int KEY_REGION_BASE = BUCKET_COUNT + 1;
+
+    private final Path directory;
+    private final Path indexPath;
+    private final StudentCodec codec;
+
+    // Guarded by synchronized (index), together with the per-bucket counters
+    private final Map<String, Location> index = new HashMap<>();
+    private final int[] bucketRecords = new int[BUCKET_COUNT];
+    private final int[] bucketLive = new int[BUCKET_COUNT];
+    private int savesSinceCheckpoint;
+    // How far each bucket has been indexed, and after which compaction
+    private final long[] scannedEnd = new long[BUCKET_COUNT];
+    private final long[] knownGeneration = new long[BUCKET_COUNT];
+
+    // Appends and reads share a bucket (appends are batched by the journal's group commit);
+    // compaction and rescans rewrite the bucket's entries and need it exclusively.
+    private final ReentrantReadWriteLock[] bucketLocks = new ReentrantReadWriteLock[BUCKET_COUNT];
+    private final Object checkpointLock = new Object();
+    private final Object[] keyLocks = new Object[KEY_LOCK_STRIPES];
+    private final StoreLocks storeLocks;
+
+    // Where an email's latest record lives; offset is -1 when not known yet
+    private static class Location {
+        final int bucket;
+        final long offset;
+
+        Location(int bucket, long offset) {
+            this.bucket = bucket;
+            this.offset = offset;
+        }
+    }
+
+    // Where a bucket's journal stood after a copy: which compaction it was at and where its valid
+    // records ended. Passed back to copyBucket() to copy only what came after.
+    public static final class BucketPosition {
+        public final long generation;
+        public final long end;
+
+        public BucketPosition(long generation, long end) {
+            this.generation = generation;
+            this.end = end;
+        }
+    }
+
+    // Receives length bytes of a bucket's journal, read from source at fromOffset. A fromOffset of 0
+    // means the whole bucket, replacing any earlier copy of it; source is null when length is 0.
+    public interface BucketSink {
+        void write(int bucket, long fromOffset, long length, FileChannel source) throws IOException;
+    }
+
+    public ShardedUserStore(Path directory, StudentCodec codec) {
+        this.directory = directory;
+        this.codec = codec;
+        this.indexPath = directory.resolve(INDEX_FILE);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketLocks[i] = new ReentrantReadWriteLock();
+        }
+        for (int i = 0; i < KEY_LOCK_STRIPES; i++) {
+            keyLocks[i] = new Object();
+        }
+        try {
+            storeLocks = StoreLocks.forFile(directory.resolve(LOCK_FILE), KEY_REGION_BASE + KEY_LOCK_STRIPES);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open user store lock in " + directory, e);
+        }
+        loadIndex();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        synchronized (index) {
+            return index.isEmpty();
+        }
+    }
+
+    @Override
+    public boolean contains(String email) {
+        String key = UserStore.normalizeEmail(email);
+        catchUp(bucketOf(key));
+        synchronized (index) {
+            return index.containsKey(key);
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    // Reads a single student's latest record, or null if not registered
+    @Override
+    public Student find(String email) {
+        String key = UserStore.normalizeEmail(email);
+        catchUp(bucketOf(key));
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Location location;
+            synchronized (index) {
+                location = index.get(key);
+            }
+            if (location == null) {
+                return null;
+            }
+
+            Student student;
+            readLockBucket(location.bucket);
+            try {
+                student = bucketJournal(location.bucket).readAt(location.offset);
+            } finally {
+                readUnlockBucket(location.bucket);
+            }
+            if (student != null && key.equals(UserStore.normalizeEmail(student.getEmail()))) {
+                return student;
+            }
+            // The offset does not point at this student's record; rebuild the bucket's entries and retry
+            reindexBucket(location.bucket);
+        }
+        return null;
+    }
+
+    @Override
+    public void save(Student student) throws IOException {
+        String key = UserStore.normalizeEmail(student.getEmail());
+        synchronized (keyLock(key)) {
+            storeLocks.lockExclusive(keyRegion(key));
+            try {
+                Student current = find(key);
+                student.setVersion((current == null) ? 1 : current.getVersion() + 1);
+                append(key, student);
+            } finally {
+                storeLocks.unlockExclusive(keyRegion(key));
+            }
+        }
+    }
+
+    @Override
+    public boolean compareAndSave(Student student, long expectedVersion) throws IOException {
+        String key = UserStore.normalizeEmail(student.getEmail());
+        synchronized (keyLock(key)) {
+            // Another instance saving the same email waits here too, so the version check holds for the append
+            storeLocks.lockExclusive(keyRegion(key));
+            try {
+                Student current = find(key);
+                long currentVersion = (current == null) ? 0 : current.getVersion();
+                if (currentVersion != expectedVersion) {
+                    return false;
+                }
+                student.setVersion(expectedVersion + 1);
+                append(key, student);
+                return true;
+            } finally {
+                storeLocks.unlockExclusive(keyRegion(key));
+            }
+        }
+    }
+
+    // Appends the student's record to its bucket and points the index at it
+    private void append(String key, Student student) throws IOException {
+        int bucket = bucketOf(key);
+        Files.createDirectories(directory);
+        readLockBucket(bucket);
+        try {
+            long offset = bucketJournal(bucket).append(student);
+            synchronized (index) {
+                putLocation(key, bucket, offset);
+                bucketRecords[bucket]++;
+                savesSinceCheckpoint++;
+            }
+        } finally {
+            readUnlockBucket(bucket);
+        }
+        afterWrite(bucket);
+    }
+
+    // One-time copy of users from the old users.txt store.
+    // Each bucket gets one append, instead of one fsync per account.
+    @Override
+    public void importUsers(Collection<Student> users) throws IOException {
+        List<List<Student>> byBucket = new ArrayList<>();
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            byBucket.add(new ArrayList<>());
+        }
+        for (Student student : users) {
+            byBucket.get(bucketOf(UserStore.normalizeEmail(student.getEmail()))).add(student);
+        }
+
+        Files.createDirectories(directory);
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            List<Student> students = byBucket.get(bucket);
+            if (students.isEmpty()) continue;
+            readLockBucket(bucket);
+            try {
+                long[] offsets = bucketJournal(bucket).appendAll(students);
+                synchronized (index) {
+                    for (int i = 0; i < offsets.length; i++) {
+                        putLocation(UserStore.normalizeEmail(students.get(i).getEmail()), bucket, offsets[i]);
+                    }
+                    bucketRecords[bucket] += students.size();
+                }
+            } finally {
+                readUnlockBucket(bucket);
+            }
+        }
+        checkpoint();
+    }
+
+    // Reads the buckets sequentially, one record at a time
+    @Override
+    public Stream<Student> stream() {
+        ScanIterator iterator = new ScanIterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+    }
+
+    // Hands the bucket's records written since the given position to sink, or all of them if the
+    // bucket was compacted since (or since is null), and returns the new position. Only whole, valid
+    // records are copied. Holds the bucket shared, so saves from every instance carry on meanwhile.
+    public BucketPosition copyBucket(int bucket, BucketPosition since, BucketSink sink) throws IOException {
+        catchUp(bucket);
+        readLockBucket(bucket);
+        try {
+            long generation = storeLocks.readCounter(bucket);
+            UserJournal journal = bucketJournal(bucket);
+            long size = journalSize(bucket);
+            long from = (since != null && since.generation == generation && since.end <= size) ? since.end : 0;
+            long end = from;
+            // Walks the record headers and checksums without decoding students
+            try (UserJournal.Cursor cursor = journal.openCursor(from)) {
+                while (cursor.next()) {
+                    end = cursor.getEndOffset();
+                }
+            }
+            // A resent bucket is sent even when empty, so the copy of the old one is replaced
+            boolean resent = from == 0 && since != null && since.end > 0;
+            if (end > from) {
+                try (FileChannel source = FileChannel.open(journal.getPath(), StandardOpenOption.READ)) {
+                    sink.write(bucket, from, end - from, source);
+                }
+            } else if (resent) {
+                sink.write(bucket, 0, 0, null);
+            }
+            return new BucketPosition(generation, end);
+        } finally {
+            readUnlockBucket(bucket);
+        }
+    }
+
+    // Writes the current index to index.txt so the next startup only scans records appended after this
+    @Override
+    public void checkpoint() {
+        synchronized (checkpointLock) {
+            storeLocks.lockExclusive(CHECKPOINT_REGION);
+            try {
+                writeCheckpoint();
+            } finally {
+                storeLocks.unlockExclusive(CHECKPOINT_REGION);
+            }
+        }
+    }
+
+    // Caller holds checkpointLock and the checkpoint region
+    private void writeCheckpoint() {
+        List<String> lines = new ArrayList<>();
+        // No append of this instance is in flight while the bucket locks are held, and the shared regions
+        // keep other instances from compacting while the index is caught up and copied. Records other
+        // instances append after that are found by the next startup's tail scan.
+        lockAllBuckets();
+        try {
+            for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                storeLocks.lockShared(bucket);
+            }
+            try {
+                for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                    refreshBucket(bucket);
+                }
+                synchronized (index) {
+                    lines.add(INDEX_HEADER);
+                    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                        lines.add("@" + bucket + "," + bucketRecords[bucket]);
+                    }
+                    for (Map.Entry<String, Location> entry : index.entrySet()) {
+                        Location location = entry.getValue();
+                        lines.add(entry.getKey() + "," + location.bucket + "," + location.offset);
+                    }
+                    savesSinceCheckpoint = 0;
+                }
+            } finally {
+                for (int bucket = BUCKET_COUNT - 1; bucket >= 0; bucket--) {
+                    storeLocks.unlockShared(bucket);
+                }
+            }
+        } finally {
+            unlockAllBuckets();
+        }
+
+        try {
+            AtomicFiles.write(indexPath, stream -> {
+                Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+                for (String line : lines) {
+                    out.write(line);
+                    out.write('\n');
+                }
+                out.flush();
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Walks the buckets in order and yields only the records the index points at, so superseded
+    // records are skipped without keeping a map of everyone already seen
+    private class ScanIterator implements Iterator<Student> {
+        private int bucket = -1;
+        private long[] liveOffsets;
+        private UserJournal.Cursor cursor;
+        private Student next;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Student next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Student student = next;
+            next = null;
+            return student;
+        }
+
+        private Student advance() {
+            try {
+                while (true) {
+                    if (cursor == null) {
+                        if (++bucket >= BUCKET_COUNT) {
+                            return null;
+                        }
+                        openBucket();
+                    }
+                    while (cursor.next()) {
+                        if (Arrays.binarySearch(liveOffsets, cursor.getOffset()) >= 0) {
+                            Student student = cursor.getStudent();
+                            if (student != null) {
+                                return student;
+                            }
+                        }
+                    }
+                    close();
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // The file is opened and its live offsets taken under the same lock, so both belong to the
+        // same version of the bucket even if it is compacted while the scan reads it
+        private void openBucket() throws IOException {
+            while (true) {
+                catchUp(bucket);
+                readLockBucket(bucket);
+                try {
+                    // Another instance may have compacted the bucket since catching up
+                    if (storeLocks.readCounter(bucket) == generationOf(bucket)) {
+                        snapshotBucket();
+                        break;
+                    }
+                } finally {
+                    readUnlockBucket(bucket);
+                }
+            }
+            Arrays.sort(liveOffsets);
+        }
+
+        private void snapshotBucket() throws IOException {
+            synchronized (index) {
+                liveOffsets = new long[bucketLive[bucket]];
+                int count = 0;
+                for (Location location : index.values()) {
+                    if (location.bucket == bucket && location.offset >= 0 && count < liveOffsets.length) {
+                        liveOffsets[count++] = location.offset;
+                    }
+                }
+                liveOffsets = Arrays.copyOf(liveOffsets, count);
+            }
+            cursor = bucketJournal(bucket).openCursor(0);
+        }
+
+        void close() {
+            if (cursor != null) {
+                cursor.close();
+                cursor = null;
+            }
+        }
+    }
+
+    // Compacts the bucket or checkpoints the index once enough has been appended
+    private void afterWrite(int bucket) {
+        boolean compact;
+        boolean checkpoint;
+        synchronized (index) {
+            compact = bucketRecords[bucket] > bucketLive[bucket] + COMPACT_SLACK;
+            checkpoint = savesSinceCheckpoint >= CHECKPOINT_INTERVAL;
+        }
+        if (compact) {
+            compactBucket(bucket);
+        } else if (checkpoint) {
+            checkpoint();
+        }
+    }
+
+    // Other instances see the compaction through the bucket's counter in store.lock and rescan it
+    private void compactBucket(int bucket) {
+        bucketLocks[bucket].writeLock().lock();
+        storeLocks.lockExclusive(bucket);
+        try {
+            UserJournal journal = bucketJournal(bucket);
+            journal.compact(journal.replay().values());
+            long generation = storeLocks.readCounter(bucket) + 1;
+            storeLocks.writeCounter(bucket, generation);
+            scanBucket(bucket, 0, false);
+            setGeneration(bucket, generation);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            storeLocks.unlockExclusive(bucket);
+            bucketLocks[bucket].writeLock().unlock();
+        }
+        // Offsets in the bucket moved, so the last checkpoint no longer matches it
+        checkpoint();
+    }
+
+    private void reindexBucket(int bucket) {
+        bucketLocks[bucket].writeLock().lock();
+        storeLocks.lockShared(bucket);
+        try {
+            scanBucket(bucket, 0, false);
+            setGeneration(bucket, storeLocks.readCounter(bucket));
+        } finally {
+            storeLocks.unlockShared(bucket);
+            bucketLocks[bucket].writeLock().unlock();
+        }
+    }
+
+    // Indexes records other instances appended to the bucket since it was last scanned, or the
+    // whole bucket again if one of them compacted it. Cheap when nothing changed: one counter read
+    // and one file size.
+    private void catchUp(int bucket) {
+        long generation = storeLocks.readCounter(bucket);
+        long size = journalSize(bucket);
+        synchronized (index) {
+            if (generation == knownGeneration[bucket] && size == scannedEnd[bucket]) {
+                return;
+            }
+        }
+
+        bucketLocks[bucket].writeLock().lock();
+        try {
+            storeLocks.lockShared(bucket);
+            try {
+                refreshBucket(bucket);
+            } finally {
+                storeLocks.unlockShared(bucket);
+            }
+            if (generationOf(bucket) == storeLocks.readCounter(bucket) && scannedEndOf(bucket) < journalSize(bucket)) {
+                // The scan stopped before the end of the file: either an append is still being written
+                // or an instance crashed mid-append. Once no append is in flight, a partial record
+                // left behind is torn and is cut off so later records stay reachable.
+                storeLocks.lockExclusive(bucket);
+                try {
+                    recoverBucket(bucket);
+                } finally {
+                    storeLocks.unlockExclusive(bucket);
+                }
+            }
+        } finally {
+            bucketLocks[bucket].writeLock().unlock();
+        }
+    }
+
+    // Caller holds the bucket's write lock and its region at least shared
+    private void refreshBucket(int bucket) {
+        long generation = storeLocks.readCounter(bucket);
+        if (generation != generationOf(bucket)) {
+            scanBucket(bucket, 0, false);
+            setGeneration(bucket, generation);
+        } else {
+            scanBucket(bucket, scannedEndOf(bucket), false);
+        }
+    }
+
+    // Caller holds the bucket's write lock and its region exclusively, so no append is half written
+    private void recoverBucket(int bucket) {
+        long generation = storeLocks.readCounter(bucket);
+        scanBucket(bucket, (generation == generationOf(bucket)) ? scannedEndOf(bucket) : 0, true);
+        setGeneration(bucket, generation);
+    }
+
+    // Points the index at every record from the given offset on; with recover set, also cuts off a
+    // torn tail. Scanning from 0 rebuilds the bucket's entries from scratch. Caller holds the bucket
+    // exclusively in this instance.
+    private void scanBucket(int bucket, long fromOffset, boolean recover) {
+        UserJournal journal = bucketJournal(bucket);
+        if (fromOffset == 0) {
+            // Built aside and swapped in at once, so lookups never see the bucket half indexed
+            Map<String, Long> latest = new HashMap<>();
+            int[] records = new int[1];
+            UserJournal.RecordVisitor visitor = (offset, student) -> {
+                if (student != null && student.getEmail() != null) {
+                    latest.put(UserStore.normalizeEmail(student.getEmail()), offset);
+                }
+                records[0]++;
+            };
+            long end = recover ? journal.recoverFrom(0, visitor) : journal.scan(0, visitor);
+            synchronized (index) {
+                Iterator<Location> locations = index.values().iterator();
+                while (locations.hasNext()) {
+                    if (locations.next().bucket == bucket) {
+                        locations.remove();
+                    }
+                }
+                bucketLive[bucket] = 0;
+                for (Map.Entry<String, Long> entry : latest.entrySet()) {
+                    putLocation(entry.getKey(), bucket, entry.getValue());
+                }
+                bucketRecords[bucket] = records[0];
+                scannedEnd[bucket] = end;
+            }
+            return;
+        }
+
+        UserJournal.RecordVisitor visitor = (offset, student) -> {
+            synchronized (index) {
+                if (student != null && student.getEmail() != null) {
+                    String key = UserStore.normalizeEmail(student.getEmail());
+                    Location location = index.get(key);
+                    if (location != null && location.offset == offset) {
+                        // Already indexed: this instance's own append, or the checkpoint's last record.
+                        // Own records superseded since are counted twice, which only brings compaction forward.
+                        return;
+                    }
+                    if (location == null || location.offset < offset) {
+                        putLocation(key, bucket, offset);
+                    }
+                }
+                bucketRecords[bucket]++;
+            }
+        };
+        long end = recover ? journal.recoverFrom(fromOffset, visitor) : journal.scan(fromOffset, visitor);
+        synchronized (index) {
+            scannedEnd[bucket] = end;
+        }
+    }
+
+    private long generationOf(int bucket) {
+        synchronized (index) {
+            return knownGeneration[bucket];
+        }
+    }
+
+    private void setGeneration(int bucket, long generation) {
+        synchronized (index) {
+            knownGeneration[bucket] = generation;
+        }
+    }
+
+    private long scannedEndOf(int bucket) {
+        synchronized (index) {
+            return scannedEnd[bucket];
+        }
+    }
+
+    private long journalSize(int bucket) {
+        try {
+            return Files.size(bucketJournal(bucket).getPath());
+        } catch (IOException e) {
+            return 0; // not created yet
+        }
+    }
+
+    // Shared by this instance's appends and reads of the bucket, and by other instances' as well
+    private void readLockBucket(int bucket) {
+        bucketLocks[bucket].readLock().lock();
+        storeLocks.lockShared(bucket);
+    }
+
+    private void readUnlockBucket(int bucket) {
+        storeLocks.unlockShared(bucket);
+        bucketLocks[bucket].readLock().unlock();
+    }
+
+    // Caller holds synchronized (index)
+    private void putLocation(String key, int bucket, long offset) {
+        if (index.put(key, new Location(bucket, offset)) == null) {
+            bucketLive[bucket]++;
+        }
+    }
+
+    private void lockAllBuckets() {
+        for (ReentrantReadWriteLock lock : bucketLocks) {
+            lock.writeLock().lock();
+        }
+    }
+
+    private void unlockAllBuckets() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            bucketLocks[i].writeLock().unlock();
+        }
+    }
+
+    private UserJournal bucketJournal(int bucket) {
+        return new UserJournal(directory.resolve(String.format("bucket-%02d.journal", bucket)), codec);
+    }
+
+    private Object keyLock(String key) {
+        return keyLocks[Math.floorMod(key.hashCode(), KEY_LOCK_STRIPES)];
+    }
+
+    private int keyRegion(String key) {
+        return KEY_REGION_BASE + Math.floorMod(key.hashCode(), KEY_LOCK_STRIPES);
+    }
+
+    private int bucketOf(String key) {
+        return Math.floorMod(key.hashCode(), BUCKET_COUNT);
+    }
+
+    // Loads the last checkpoint, then catches each bucket up by scanning only what was appended after it.
+    // An index.txt from before offsets were kept has no offsets, so those buckets are scanned in full once.
+    private void loadIndex() {
+        if (Files.exists(indexPath)) {
+            try {
+                for (String line : Files.readAllLines(indexPath, StandardCharsets.UTF_8)) {
+                    parseIndexLine(line);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // The newest checkpointed record of each bucket is where its unindexed tail starts
+        Location[] lastRecord = new Location[BUCKET_COUNT];
+        String[] lastEmail = new String[BUCKET_COUNT];
+        boolean[] fullScan = new boolean[BUCKET_COUNT];
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            Location location = entry.getValue();
+            if (location.offset < 0) {
+                fullScan[location.bucket] = true;
+            } else if (lastRecord[location.bucket] == null || location.offset > lastRecord[location.bucket].offset) {
+                lastRecord[location.bucket] = location;
+                lastEmail[location.bucket] = entry.getKey();
+            }
+        }
+
+        int tailRecords = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            // Exclusive so no other instance is mid-append while a torn tail is cut off
+            storeLocks.lockExclusive(bucket);
+            try {
+                tailRecords += loadBucket(bucket, lastRecord[bucket], lastEmail[bucket], fullScan[bucket]);
+            } finally {
+                storeLocks.unlockExclusive(bucket);
+            }
+        }
+
+        if (tailRecords > 0) {
+            checkpoint();
+        }
+    }
+
+    // Catches one bucket up from the checkpoint and returns how many records that found
+    private int loadBucket(int bucket, Location last, String lastEmail, boolean fullScan) {
+        knownGeneration[bucket] = storeLocks.readCounter(bucket);
+        if (!fullScan && last != null) {
+            // The checkpoint's last record must still be there, otherwise the bucket was compacted
+            // after the checkpoint was written and its offsets are stale
+            Student student = bucketJournal(bucket).readAt(last.offset);
+            if (student == null || !lastEmail.equals(UserStore.normalizeEmail(student.getEmail()))) {
+                System.out.println("Index out of date for bucket " + bucket + ", rescanning.");
+                fullScan = true;
+            }
+        }
+
+        if (fullScan || last == null) {
+            scanBucket(bucket, 0, true);
+            return bucketRecords[bucket];
+        }
+        int before = bucketRecords[bucket];
+        scanBucket(bucket, last.offset, true);
+        return bucketRecords[bucket] - before;
+    }
+
+    // Lines are "@bucket,records" and "email,bucket,offset"; the old format was "email,bucket"
+    private void parseIndexLine(String line) {
+        if (line.isEmpty() || line.startsWith("#")) {
+            return;
+        }
+        try {
+            if (line.startsWith("@")) {
+                int comma = line.indexOf(',');
+                bucketRecords[Integer.parseInt(line.substring(1, comma))] = Integer.parseInt(line.substring(comma + 1).trim());
+                return;
+            }
+            int last = line.lastIndexOf(',');
+            if (last <= 0) {
+                return;
+            }
+            int previous = line.lastIndexOf(',', last - 1);
+            if (previous > line.indexOf('@')) {
+                int bucket = Integer.parseInt(line.substring(previous + 1, last).trim());
+                putLocation(line.substring(0, previous), bucket, Long.parseLong(line.substring(last + 1).trim()));
+            } else {
+                putLocation(line.substring(0, last), Integer.parseInt(line.substring(last + 1).trim()), -1);
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            System.out.println("Skipping invalid index line: " + line);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package handler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+// Reader/writer locks shared between planner instances on one machine, taken with FileChannel.lock
+// on one-byte regions of a lock file. The same file also holds a few counters (e.g. how often each
+// bucket has been compacted) so instances can tell when another one rewrote a file.
+//
+// A FileLock belongs to the whole process, and locking a region the process already holds throws
+// instead of waiting. So every store opened on a lock file in this process shares one StoreLocks
+// (see forFile), and its threads wait for each other here before they lock the file: threads that
+// want a region shared share one FileLock, and a thread that wants it exclusively waits until no
+// other thread of the process holds it. A thread must not lock a region it already holds.
+// If the file system does not support locking, the problem is printed and the lock is skipped.
+public class StoreLocks {
+    // Counters are kept past the lock regions so the two never overlap
+    private static final long COUNTER_OFFSET = 64 * 1024;
+
+    // Lock files open in this process, by absolute path
+    private static final Map<Path, StoreLocks> OPEN = new HashMap<>();
+
+    private final FileChannel channel;
+    private final Region[] regions;
+
+    private static class Region {
+        private int sharedHolders;
+        private FileLock sharedLock;
+        private boolean exclusive;
+        private FileLock exclusiveLock;
+    }
+
+    // The process's locks on lockPath, opened on first use. Every caller must pass the same regionCount.
+    public static StoreLocks forFile(Path lockPath, int regionCount) throws IOException {
+        Path key = lockPath.toAbsolutePath().normalize();
+        synchronized (OPEN) {
+            StoreLocks locks = OPEN.get(key);
+            if (locks == null) {
+                locks = new StoreLocks(key, regionCount);
+                OPEN.put(key, locks);
+            }
+            return locks;
+        }
+    }
+
+    private StoreLocks(Path lockPath, int regionCount) throws IOException {
+        Files.createDirectories(lockPath.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(lockPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.regions = new Region[regionCount];
+        for (int i = 0; i < regionCount; i++) {
+            regions[i] = new Region();
+        }
+    }
+
+    public void lockShared(int region) {
+        Region r = regions[region];
+        synchronized (r) {
+            awaitTurn(r, false);
+            if (r.sharedHolders == 0) {
+                r.sharedLock = acquire(region, true);
+            }
+            r.sharedHolders++;
+        }
+    }
+
+    public void unlockShared(int region) {
+        Region r = regions[region];
+        synchronized (r) {
+            r.sharedHolders--;
+            if (r.sharedHolders == 0) {
+                release(r.sharedLock);
+                r.sharedLock = null;
+                r.notifyAll();
+            }
+        }
+    }
+
+    public void lockExclusive(int region) {
+        Region r = regions[region];
+        synchronized (r) {
+            awaitTurn(r, true);
+            r.exclusive = true;
+            r.exclusiveLock = acquire(region, false);
+        }
+    }
+
+    public void unlockExclusive(int region) {
+        Region r = regions[region];
+        synchronized (r) {
+            release(r.exclusiveLock);
+            r.exclusiveLock = null;
+            r.exclusive = false;
+            r.notifyAll();
+        }
+    }
+
+    public long readCounter(int index) {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        try {
+            long position = COUNTER_OFFSET + index * 8L;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    return 0; // never written
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+        return buffer.getLong(0);
+    }
+
+    // Only call while holding the region the counter belongs to exclusively
+    public void writeCounter(int index, long value) {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putLong(0, value);
+        try {
+            long position = COUNTER_OFFSET + index * 8L;
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Caller holds r's monitor. Waits until no other thread of this process holds the region
+    // exclusively, or at all when an exclusive lock is wanted.
+    private static void awaitTurn(Region r, boolean exclusive) {
+        boolean interrupted = false;
+        while (r.exclusive || (exclusive && r.sharedHolders > 0)) {
+            try {
+                r.wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private FileLock acquire(int region, boolean shared) {
+        try {
+            return channel.lock(region, 1, shared);
+        } catch (IOException e) {
+            System.out.println("Could not lock user store region " + region + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void release(FileLock lock) {
+        if (lock == null) {
+            return;
+        }
+        try {
+            lock.release();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package handler;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// One shared instance per distinct value for strings that repeat across the catalog and student
+// records: course codes, titles, sections, times, days, rooms, program names and schedule names.
+// The loaders, the catalog snapshot and the student codec pass those fields through intern(), so
+// e.g. a title repeated by twenty sections, or "TBA", is one String on the heap.
+// Values are held for the life of the process; personal fields (names, emails, passwords) never go in.
+public final class StringPool {
+    private static final ConcurrentHashMap<String, String> pool = new ConcurrentHashMap<>();
+
+    static {
+        // Course's program-course constructor uses these literals; make them the shared instances
+        intern("TBA");
+        intern("");
+    }
+
+    private StringPool() {
+    }
+
+    // The pooled instance equal to value (null stays null)
+    public static String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = pool.putIfAbsent(value, value);
+        return (existing == null) ? value : existing;
+    }
+}
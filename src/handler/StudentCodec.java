@@ -0,0 +1,319 @@
+package handler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import model.Course;
+import model.Student;
+
+// Compact binary format for Student records, used instead of Java serialization.
+//
+// Layout (all numbers are unsigned varints):
+//   version
+//   string table: count, then (length, UTF-8 bytes) per string
+//   firstName, middleName, lastName, email, password, program, profilePicturePath, activeScheduleName
+//   schedule count, then per schedule: name, course count, courses
+//   record version (since format 2; format 1 records read as version 0)
+// Strings are written as table references (0 = null, n = table[n - 1]) so repeated values such as
+// course codes shared between schedules are only stored once per record.
+// A course that matches a catalog offering is written as its code, section and a fingerprint of
+// its other details; any other course is written inline with all of its fields. A reference reads
+// back as the catalog's instance. If the registrar has since changed the section (the fingerprint no
+// longer matches) or dropped it, the student gets a schedule notice. Format 3 wrote every course
+// inline and keeps its saved copy of a changed section; formats 1 and 2 wrote references without a
+// fingerprint.
+// Offerings are looked up in the catalog's current OfferingIndex on every encode and decode, so a
+// codec created at startup follows hot reloads of course_offerings.csv.
+public class StudentCodec {
+    public static final int VERSION = 4;
+
+    private static final int TAG_OFFERING = 1;
+    private static final int TAG_INLINE = 2;
+
+    private final Supplier<OfferingIndex> offerings;
+
+    public StudentCodec(CatalogCache catalog) {
+        this.offerings = catalog::getOfferingIndex;
+    }
+
+    // Against a fixed list of offerings that never reloads (tools and tests)
+    public StudentCodec(List<Course> offerings) {
+        OfferingIndex index = new OfferingIndex(offerings, Collections.emptyMap());
+        this.offerings = () -> index;
+    }
+
+    public byte[] encode(Student student) throws IOException {
+        OfferingIndex index = offerings.get();
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        writeVarint(body, strings.ref(student.getFirstName()));
+        writeVarint(body, strings.ref(student.getMiddleName()));
+        writeVarint(body, strings.ref(student.getLastName()));
+        writeVarint(body, strings.ref(student.getEmail()));
+        writeVarint(body, strings.ref(student.getPassword()));
+        writeVarint(body, strings.ref(student.getProgram()));
+        writeVarint(body, strings.ref(student.getProfilePicturePath()));
+        writeVarint(body, strings.ref(student.getActiveScheduleName()));
+
+        writeVarint(body, student.getSavedScheduleNames().size());
+        for (String name : student.getSavedScheduleNames()) {
+            List<Course> courses = student.getSchedule(name);
+            writeVarint(body, strings.ref(name));
+            writeVarint(body, courses.size());
+            for (Course course : courses) {
+                writeCourse(body, strings, index, course);
+            }
+        }
+        writeVarLong(body, student.getVersion());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() + 128);
+        writeVarint(out, VERSION);
+        writeVarint(out, strings.values.size());
+        for (String value : strings.values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, bytes.length);
+            out.write(bytes);
+        }
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+
+    public Student decode(byte[] data, int offset, int length) throws IOException {
+        Reader in = new Reader(data, offset, offset + length);
+        int version = in.readVarint();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported student record version: " + version);
+        }
+
+        String[] table = new String[in.readVarint()];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = in.readString();
+        }
+
+        Student student = new Student();
+        student.setFirstName(in.readRef(table));
+        student.setMiddleName(in.readRef(table));
+        student.setLastName(in.readRef(table));
+        student.setEmail(in.readRef(table));
+        student.setPassword(in.readRef(table));
+        // Program and schedule names repeat across students, so they are pooled; personal fields are not
+        student.setProgram(StringPool.intern(in.readRef(table)));
+        student.setProfilePicturePath(in.readRef(table));
+        String activeScheduleName = StringPool.intern(in.readRef(table));
+
+        OfferingIndex index = offerings.get();
+        int scheduleCount = in.readVarint();
+        for (int i = 0; i < scheduleCount; i++) {
+            String name = StringPool.intern(in.readRef(table));
+            int courseCount = in.readVarint();
+            List<Course> courses = new ArrayList<>(courseCount);
+            for (int j = 0; j < courseCount; j++) {
+                Course course = readCourse(in, table, version, index, student, name);
+                if (course != null) {
+                    courses.add(course);
+                }
+            }
+            student.setSchedule(name, courses);
+        }
+        student.setActiveSchedule(activeScheduleName);
+        if (version >= 2) {
+            student.setVersion(in.readVarLong());
+        }
+        return student;
+    }
+
+    private static void writeCourse(ByteArrayOutputStream out, StringTable strings, OfferingIndex index, Course course) {
+        Course offering = index.getOffering(course.getCourseCode(), course.getSection());
+        if (offering != null && offering.hasSameDetails(course)) {
+            writeVarint(out, TAG_OFFERING);
+            writeVarint(out, strings.ref(course.getCourseCode()));
+            writeVarint(out, strings.ref(course.getSection()));
+            writeVarint(out, fingerprint(course));
+            return;
+        }
+
+        writeVarint(out, TAG_INLINE);
+        writeVarint(out, strings.ref(course.getCourseCode()));
+        writeVarint(out, strings.ref(course.getCourseTitle()));
+        writeVarint(out, course.getUnits());
+        writeVarint(out, strings.ref(course.getSection()));
+        writeVarint(out, strings.ref(course.getTimes()));
+        writeVarint(out, strings.ref(course.getDays()));
+        writeVarint(out, strings.ref(course.getRooms()));
+        writeVarint(out, strings.ref(course.getDescription()));
+    }
+
+    // The course, or null for a reference to a section no longer in the catalog (only its code and
+    // section were saved, so there is nothing to keep; the student gets a notice)
+    private static Course readCourse(Reader in, String[] table, int version, OfferingIndex index, Student student,
+            String schedule) throws IOException {
+        int tag = in.readVarint();
+        if (tag == TAG_OFFERING && version != 3) {
+            String code = in.readRef(table);
+            String section = in.readRef(table);
+            // Formats 1 and 2 saved no fingerprint, so a changed section cannot be told apart there
+            boolean hasFingerprint = version >= 4;
+            int saved = hasFingerprint ? in.readVarint() : 0;
+            Course offering = index.getOffering(code, section);
+            if (offering == null) {
+                student.addScheduleNotice(schedule + ": " + code + " " + section
+                        + " - no longer offered, removed from the schedule");
+            } else if (hasFingerprint && fingerprint(offering) != saved) {
+                student.addScheduleNotice(schedule + ": " + offering.getOfferingId() + " - changed since saved, now "
+                        + offering.getTimes() + " " + offering.getDays() + " in " + offering.getRooms());
+            }
+            return offering;
+        }
+        if (tag != TAG_OFFERING && tag != TAG_INLINE) {
+            throw new IOException("Unknown course tag: " + tag);
+        }
+
+        String code = StringPool.intern(in.readRef(table));
+        String title = StringPool.intern(in.readRef(table));
+        int units = in.readVarint();
+        String section = StringPool.intern(in.readRef(table));
+        String times = StringPool.intern(in.readRef(table));
+        String days = StringPool.intern(in.readRef(table));
+        String rooms = StringPool.intern(in.readRef(table));
+        String description = StringPool.intern(in.readRef(table));
+
+        Course course = (description != null && !description.isEmpty())
+                ? new Course(code, title, units, description)
+                : new Course(code, title, units, section, times, days, rooms);
+        // Share the catalog's instance while the two agree (an inline course may agree again)
+        Course offering = index.getOffering(code, section);
+        if (offering != null && offering.hasSameDetails(course)) {
+            return offering;
+        }
+        if (tag == TAG_OFFERING) {
+            // A format 3 copy saved from the catalog, which has changed or dropped the section since
+            student.addScheduleNotice(schedule + ": " + course.getOfferingId() + " - " + (offering == null
+                    ? "no longer offered"
+                    : "now " + offering.getTimes() + " " + offering.getDays() + " in " + offering.getRooms())
+                    + "; kept as saved (" + course.getTimes() + " " + course.getDays() + ")");
+        }
+        return course;
+    }
+
+    // CRC-32 of everything hasSameDetails compares besides the code and section
+    static int fingerprint(Course course) {
+        CRC32 crc = new CRC32();
+        String[] fields = {course.getCourseTitle(), Integer.toString(course.getUnits()), course.getTimes(),
+                course.getDays(), course.getRooms(), course.getDescription()};
+        for (String field : fields) {
+            if (field == null) {
+                crc.update(1);
+            } else {
+                crc.update(field.getBytes(StandardCharsets.UTF_8));
+                crc.update(0);
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    // Collects the distinct strings of one record in first-use order
+    private static class StringTable {
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int ref(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer ref = refs.get(value);
+            if (ref == null) {
+                values.add(value);
+                ref = values.size();
+                refs.put(value, ref);
+            }
+            return ref;
+        }
+    }
+
+    private static class Reader {
+        private final byte[] data;
+        private final int end;
+        private int pos;
+
+        Reader(byte[] data, int offset, int end) {
+            this.data = data;
+            this.pos = offset;
+            this.end = end;
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (pos >= end) {
+                    throw new IOException("Truncated student record");
+                }
+                byte b = data[pos++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in student record");
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= end) {
+                    throw new IOException("Truncated student record");
+                }
+                byte b = data[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in student record");
+        }
+
+        String readString() throws IOException {
+            int length = readVarint();
+            if (length < 0 || pos + length > end) {
+                throw new IOException("Truncated student record");
+            }
+            String value = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        String readRef(String[] table) throws IOException {
+            int ref = readVarint();
+            if (ref == 0) {
+                return null;
+            }
+            if (ref > table.length) {
+                throw new IOException("Bad string reference in student record: " + ref);
+            }
+            return table[ref - 1];
+        }
+    }
+}
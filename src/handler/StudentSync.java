@@ -0,0 +1,124 @@
+package handler;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import model.Course;
+import model.Student;
+
+// Saves one session's edits without overwriting changes another session saved to the same student.
+// For every student the session keeps a base copy: its own state as of its last load or save. A save
+// reads the stored record, applies only what this session changed since the base on top of it, and
+// writes with compareAndSave(), retrying if yet another save slipped in between.
+// Schedules are merged one by one. If both sessions changed the same schedule, this session's version
+// keeps the name and the other one is kept as "<name> (conflict)".
+public class StudentSync {
+    public static final String CONFLICT_SUFFIX = " (conflict)";
+
+    private final UserStore store;
+    private final Map<String, Student> bases = new HashMap<>();
+
+    public StudentSync(UserStore store) {
+        this.store = store;
+    }
+
+    // Remembers the state a session started from (after login or registration)
+    public synchronized void track(Student loaded) {
+        bases.put(UserStore.normalizeEmail(loaded.getEmail()), new Student(loaded));
+    }
+
+    // Writes the session's state and returns what was stored, which includes any other session's changes
+    public Student save(Student current) throws IOException {
+        String key = UserStore.normalizeEmail(current.getEmail());
+        Student ours = new Student(current);
+        Student base;
+        synchronized (this) {
+            base = bases.get(key);
+        }
+
+        Student written;
+        while (true) {
+            Student stored = store.find(key);
+            long expectedVersion = (stored == null) ? 0 : stored.getVersion();
+            written = (stored == null || base == null) ? new Student(ours) : merge(base, ours, stored);
+            if (store.compareAndSave(written, expectedVersion)) {
+                break;
+            }
+            if (FileManager.DEBUG) {
+                System.out.println("Another session saved " + current.getEmail() + " first, merging.");
+            }
+        }
+
+        synchronized (this) {
+            bases.put(key, ours);
+        }
+        return written;
+    }
+
+    // Applies what changed from base to ours on top of theirs
+    static Student merge(Student base, Student ours, Student theirs) {
+        Student merged = new Student(theirs);
+
+        if (!Objects.equals(base.getFirstName(), ours.getFirstName())) merged.setFirstName(ours.getFirstName());
+        if (!Objects.equals(base.getMiddleName(), ours.getMiddleName())) merged.setMiddleName(ours.getMiddleName());
+        if (!Objects.equals(base.getLastName(), ours.getLastName())) merged.setLastName(ours.getLastName());
+        if (!Objects.equals(base.getPassword(), ours.getPassword())) merged.setPassword(ours.getPassword());
+        if (!Objects.equals(base.getProgram(), ours.getProgram())) merged.setProgram(ours.getProgram());
+        if (!Objects.equals(base.getProfilePicturePath(), ours.getProfilePicturePath())) {
+            merged.setProfilePicturePath(ours.getProfilePicturePath());
+        }
+
+        Set<String> names = new LinkedHashSet<>(base.getSavedScheduleNames());
+        names.addAll(ours.getSavedScheduleNames());
+        names.addAll(theirs.getSavedScheduleNames());
+        for (String name : names) {
+            List<Course> baseCourses = scheduleOf(base, name);
+            List<Course> ourCourses = scheduleOf(ours, name);
+            List<Course> theirCourses = scheduleOf(theirs, name);
+            if (sameCourses(baseCourses, ourCourses)) {
+                continue; // untouched by this session, theirs stands
+            }
+            if (!sameCourses(baseCourses, theirCourses) && !sameCourses(ourCourses, theirCourses)
+                    && theirCourses != null) {
+                merged.setSchedule(name + CONFLICT_SUFFIX, theirCourses);
+            }
+            if (ourCourses == null) {
+                merged.removeSchedule(name);
+            } else {
+                merged.setSchedule(name, ourCourses);
+            }
+        }
+
+        String active = Objects.equals(base.getActiveScheduleName(), ours.getActiveScheduleName())
+                ? theirs.getActiveScheduleName() : ours.getActiveScheduleName();
+        if (!merged.getSavedScheduleNames().contains(active)) {
+            active = merged.getSavedScheduleNames().isEmpty() ? "Default" : merged.getSavedScheduleNames().iterator().next();
+        }
+        merged.setActiveSchedule(active);
+        return merged;
+    }
+
+    // null when the student has no schedule by that name
+    private static List<Course> scheduleOf(Student student, String name) {
+        return student.getSavedScheduleNames().contains(name) ? student.getSchedule(name) : null;
+    }
+
+    private static boolean sameCourses(List<Course> a, List<Course> b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).hasSameDetails(b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,352 @@
+package handler;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Incremental backups of a ShardedUserStore. The store's buckets are append-only journals, so a
+// backup only has to copy what each bucket gained since the previous backup; a bucket that was
+// compacted in between is copied whole. Backup cost follows how much changed, not how many accounts
+// there are.
+//
+// Every backup is one file, backup-<n>.dat, listed in backups.txt with its time and SHA-256:
+//   [magic][sequence][time] then sections [bucket][from offset][length][crc32][journal bytes],
+//   then [-1] and each bucket's position (compaction generation, end offset) after the backup.
+// restore() replays the newest full backup at or before the chosen time and the incremental
+// backups after it, checking every checksum on the way, into an empty directory.
+public class UserBackup {
+    private static final String MANIFEST_FILE = "backups.txt";
+    private static final int MAGIC = 0x55424B31; // "UBK1"
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final Path manifestPath;
+
+    // One line of backups.txt
+    public static class Entry {
+        private final long sequence;
+        private final long time;
+        private final boolean full;
+        private final String fileName;
+        private final String sha256;
+        private final long bytes;
+
+        Entry(long sequence, long time, boolean full, String fileName, String sha256, long bytes) {
+            this.sequence = sequence;
+            this.time = time;
+            this.full = full;
+            this.fileName = fileName;
+            this.sha256 = sha256;
+            this.bytes = bytes;
+        }
+
+        public long getSequence() { return sequence; }
+        public long getTime() { return time; }
+        public boolean isFull() { return full; }
+        public String getFileName() { return fileName; }
+        public long getBytes() { return bytes; }
+
+        @Override
+        public String toString() {
+            return sequence + " " + LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault())
+                    + (full ? " full " : " incremental ") + bytes + " bytes";
+        }
+    }
+
+    public UserBackup(Path directory) {
+        this.directory = directory;
+        this.manifestPath = directory.resolve(MANIFEST_FILE);
+    }
+
+    // Backups in the order they were taken
+    public List<Entry> list() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(manifestPath)) {
+            return entries;
+        }
+        for (String line : Files.readAllLines(manifestPath, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split(",");
+            try {
+                entries.add(new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2].equals("full"),
+                        parts[3], parts[4], Long.parseLong(parts[5])));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                System.out.println("Skipping invalid backup line: " + line);
+            }
+        }
+        return entries;
+    }
+
+    // Copies what changed in the store since the last backup. The first backup, or one with full
+    // set, copies every bucket and starts a new chain.
+    public Entry backup(ShardedUserStore store, boolean full) throws IOException {
+        List<Entry> entries = list();
+        ShardedUserStore.BucketPosition[] since = new ShardedUserStore.BucketPosition[ShardedUserStore.BUCKET_COUNT];
+        if (!full && !entries.isEmpty()) {
+            since = readPositions(directory.resolve(entries.get(entries.size() - 1).getFileName()));
+        }
+        full = full || entries.isEmpty();
+
+        long sequence = entries.isEmpty() ? 1 : entries.get(entries.size() - 1).getSequence() + 1;
+        long time = System.currentTimeMillis();
+        String fileName = String.format("backup-%06d.dat", sequence);
+        MessageDigest digest = sha256();
+        ShardedUserStore.BucketPosition[] previous = since;
+        ShardedUserStore.BucketPosition[] after = new ShardedUserStore.BucketPosition[ShardedUserStore.BUCKET_COUNT];
+        long[] bytes = new long[1];
+
+        AtomicFiles.write(directory.resolve(fileName), stream -> {
+            DataOutputStream out = new DataOutputStream(new DigestOutputStream(stream, digest));
+            out.writeInt(MAGIC);
+            out.writeLong(sequence);
+            out.writeLong(time);
+            for (int bucket = 0; bucket < ShardedUserStore.BUCKET_COUNT; bucket++) {
+                after[bucket] = store.copyBucket(bucket, previous[bucket], (b, from, length, source) -> {
+                    out.writeInt(b);
+                    out.writeLong(from);
+                    out.writeLong(length);
+                    out.writeInt((int) crcOf(source, from, length));
+                    copy(source, from, length, out);
+                });
+            }
+            out.writeInt(-1);
+            for (ShardedUserStore.BucketPosition position : after) {
+                out.writeLong(position.generation);
+                out.writeLong(position.end);
+            }
+            out.flush();
+            bytes[0] = out.size();
+        });
+
+        Entry entry = new Entry(sequence, time, full, fileName, hex(digest.digest()), bytes[0]);
+        entries.add(entry);
+        writeManifest(entries);
+        return entry;
+    }
+
+    // Rebuilds the store as of the newest backup taken at or before the given time into an empty
+    // target directory, and returns that backup
+    public Entry restore(Path target, long pointInTime) throws IOException {
+        if (Files.isDirectory(target)) {
+            try (Stream<Path> files = Files.list(target)) {
+                if (files.findAny().isPresent()) {
+                    throw new IOException("Restore target " + target + " is not empty");
+                }
+            }
+        }
+
+        List<Entry> entries = list();
+        int last = -1;
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).getTime() <= pointInTime) {
+                last = i;
+            }
+        }
+        if (last < 0) {
+            throw new IOException("No backup was taken at or before that time");
+        }
+        int first = last;
+        while (!entries.get(first).isFull()) {
+            first--;
+            if (first < 0) {
+                throw new IOException("No full backup before " + entries.get(last).getFileName());
+            }
+        }
+
+        Files.createDirectories(target);
+        for (int i = first; i <= last; i++) {
+            apply(entries.get(i), target);
+        }
+        return entries.get(last);
+    }
+
+    private void apply(Entry entry, Path target) throws IOException {
+        Path file = directory.resolve(entry.getFileName());
+        MessageDigest digest = sha256();
+        try (InputStream stream = Files.newInputStream(file)) {
+            DataInputStream in = new DataInputStream(new DigestInputStream(new BufferedInputStream(stream), digest));
+            if (in.readInt() != MAGIC || in.readLong() != entry.getSequence()) {
+                throw new IOException(entry.getFileName() + " is not backup " + entry.getSequence());
+            }
+            in.readLong(); // time, also kept in the manifest
+
+            int bucket;
+            while ((bucket = in.readInt()) >= 0) {
+                long from = in.readLong();
+                long length = in.readLong();
+                int crc = in.readInt();
+                Path journal = target.resolve(String.format("bucket-%02d.journal", bucket));
+                long size = Files.exists(journal) ? Files.size(journal) : 0;
+                if (from != 0 && from != size) {
+                    throw new IOException(entry.getFileName() + " continues bucket " + bucket + " at " + from
+                            + " but the restored journal ends at " + size);
+                }
+                try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    channel.truncate(from);
+                    channel.position(from);
+                    if (restoreSection(in, channel, length) != crc) {
+                        throw new IOException(entry.getFileName() + " has a damaged section for bucket " + bucket);
+                    }
+                }
+            }
+            // The positions are read too, so the digest covers the whole file
+            in.readFully(new byte[16 * ShardedUserStore.BUCKET_COUNT]);
+        } catch (EOFException e) {
+            throw new IOException(entry.getFileName() + " is truncated", e);
+        }
+        if (!hex(digest.digest()).equals(entry.sha256)) {
+            throw new IOException(entry.getFileName() + " does not match its checksum");
+        }
+    }
+
+    // Copies a section into the journal and returns its crc32
+    private static long restoreSection(DataInputStream in, FileChannel channel, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long remaining = length;
+        while (remaining > 0) {
+            int chunk = (int) Math.min(buffer.length, remaining);
+            in.readFully(buffer, 0, chunk);
+            crc.update(buffer, 0, chunk);
+            ByteBuffer data = ByteBuffer.wrap(buffer, 0, chunk);
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            remaining -= chunk;
+        }
+        channel.force(true);
+        return (int) crc.getValue();
+    }
+
+    // Each bucket's position after the given backup
+    private static ShardedUserStore.BucketPosition[] readPositions(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a user backup");
+            }
+            in.readLong();
+            in.readLong();
+            while (in.readInt() >= 0) {
+                in.readLong();
+                long length = in.readLong();
+                in.readInt();
+                in.skipNBytes(length);
+            }
+            ShardedUserStore.BucketPosition[] positions = new ShardedUserStore.BucketPosition[ShardedUserStore.BUCKET_COUNT];
+            for (int bucket = 0; bucket < positions.length; bucket++) {
+                positions[bucket] = new ShardedUserStore.BucketPosition(in.readLong(), in.readLong());
+            }
+            return positions;
+        }
+    }
+
+    private void writeManifest(List<Entry> entries) throws IOException {
+        AtomicFiles.write(manifestPath, stream -> {
+            Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+            out.write("# sequence,time,kind,file,sha256,bytes\n");
+            for (Entry entry : entries) {
+                out.write(entry.sequence + "," + entry.time + "," + (entry.full ? "full" : "incremental") + ","
+                        + entry.fileName + "," + entry.sha256 + "," + entry.bytes + "\n");
+            }
+            out.flush();
+        });
+    }
+
+    private static long crcOf(FileChannel source, long from, long length) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        long position = from;
+        while (position < from + length) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), from + length - position));
+            int read = source.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Journal ended while backing it up");
+            }
+            crc.update(buffer.array(), 0, read);
+            position += read;
+        }
+        return crc.getValue();
+    }
+
+    private static void copy(FileChannel source, long from, long length, OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        long position = from;
+        while (position < from + length) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), from + length - position));
+            int read = source.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Journal ended while backing it up");
+            }
+            out.write(buffer.array(), 0, read);
+            position += read;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder text = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            text.append(String.format("%02x", b));
+        }
+        return text.toString();
+    }
+
+    // java handler.UserBackup backup [full] | list | restore <target directory> [yyyy-MM-ddTHH:mm]
+    // Run from the project directory, like the planner itself.
+    public static void main(String[] args) throws IOException {
+        UserBackup backups = FileManager.getUserBackup();
+        String command = (args.length == 0) ? "list" : args[0];
+        if (command.equals("backup")) {
+            UserStore store = FileManager.getUserStore();
+            if (!(store instanceof ShardedUserStore)) {
+                System.out.println("Backups are only supported for the default sharded user store.");
+                return;
+            }
+            Entry entry = backups.backup((ShardedUserStore) store, args.length > 1 && args[1].equals("full"));
+            System.out.println("Backed up: " + entry);
+        } else if (command.equals("restore") && args.length > 1) {
+            long pointInTime = (args.length > 2)
+                    ? LocalDateTime.parse(args[2]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : Long.MAX_VALUE;
+            Entry entry = backups.restore(Path.of(args[1]), pointInTime);
+            System.out.println("Restored " + args[1] + " to backup " + entry);
+        } else {
+            for (Entry entry : backups.list()) {
+                System.out.println(entry);
+            }
+        }
+        System.exit(0);
+    }
+}
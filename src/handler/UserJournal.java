@@ -0,0 +1,293 @@
+package handler;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import model.Student;
+
+// Append-only change log for student records.
+// Every record is [length][crc32][payload] so a torn write at the tail can be detected and dropped.
+public class UserJournal {
+    // Records written before StudentCodec existed hold a Java-serialized Student
+    private static final byte OP_PUT_SERIALIZED = 1;
+    private static final byte OP_PUT = 2;
+
+    // Appends that land within this window of each other share one fsync
+    private static final long COMMIT_WINDOW_MILLIS = 4;
+    private static final GroupCommitWriter WRITER = new GroupCommitWriter(COMMIT_WINDOW_MILLIS);
+
+    // Called for each record found while scanning, with the offset the record starts at
+    public interface RecordVisitor {
+        void visit(long offset, Student student);
+    }
+
+    private final Path journalPath;
+    private final StudentCodec codec;
+
+    public UserJournal(Path journalPath, StudentCodec codec) {
+        this.journalPath = journalPath;
+        this.codec = codec;
+    }
+
+    public Path getPath() {
+        return journalPath;
+    }
+
+    // Appends the latest state of one student and returns once it is on disk.
+    // Cost depends only on this student's record. Returns the offset the record was written at.
+    public long append(Student student) throws IOException {
+        return WRITER.append(journalPath, encodeRecord(student));
+    }
+
+    // Appends several students with a single write and fsync (bulk import).
+    // Returns the offset of each student's record, in the same order.
+    public long[] appendAll(Collection<Student> students) throws IOException {
+        long[] offsets = new long[students.size()];
+        if (students.isEmpty()) {
+            return offsets;
+        }
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        int i = 0;
+        for (Student student : students) {
+            offsets[i++] = records.size();
+            records.write(encodeRecord(student));
+        }
+        long start = WRITER.append(journalPath, records.toByteArray());
+        for (i = 0; i < offsets.length; i++) {
+            offsets[i] += start;
+        }
+        return offsets;
+    }
+
+    // Reads the single record starting at the given offset, or null if there is no valid record there
+    public Student readAt(long offset) {
+        if (offset < 0 || !Files.exists(journalPath)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            if (!readFully(channel, header, offset)) {
+                return null;
+            }
+            int recordLength = header.getInt(0);
+            long checksum = header.getInt(4) & 0xFFFFFFFFL;
+            if (recordLength <= 0 || offset + 8 + recordLength > channel.size()) {
+                return null;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(recordLength);
+            if (!readFully(channel, payload, offset + 8) || crc(payload.array()) != checksum) {
+                return null;
+            }
+            return decodePayload(payload.array());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Visits the records from the given offset on (earlier records are assumed to be valid already)
+    // and cuts off a torn record left at the tail by a crash, so later appends stay reachable.
+    // Callers must make sure no append to this journal is in flight. Returns the offset the valid
+    // data ends at.
+    public long recoverFrom(long fromOffset, RecordVisitor visitor) {
+        long end = scan(fromOffset, visitor);
+        dropTornTail(end);
+        return end;
+    }
+
+    // Replays the journal and returns the latest record per email (lowercased), in first-seen order
+    public Map<String, Student> replay() {
+        Map<String, Student> latest = new LinkedHashMap<>();
+        scan(0, (offset, student) -> {
+            if (student != null && student.getEmail() != null) {
+                latest.put(student.getEmail().toLowerCase(), student);
+            }
+        });
+        return latest;
+    }
+
+    // Visits every valid record from the given offset on, stopping at the end of the file or at the
+    // first torn or corrupt record. Records that cannot be decoded are visited with a null student.
+    // Returns the offset the valid data ends at.
+    public long scan(long fromOffset, RecordVisitor visitor) {
+        Cursor cursor = null;
+        try {
+            cursor = openCursor(fromOffset);
+            while (cursor.next()) {
+                visitor.visit(cursor.getOffset(), cursor.getStudent());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return (cursor == null) ? fromOffset : cursor.getEndOffset();
+    }
+
+    // Reads records one at a time starting at the given offset, for scans that must not hold a whole
+    // journal in memory. The cursor keeps the file open until closed.
+    public Cursor openCursor(long fromOffset) throws IOException {
+        return new Cursor(fromOffset);
+    }
+
+    public class Cursor implements Closeable {
+        private final FileChannel channel;
+        private final DataInputStream in;
+        private long offset;
+        private long endOffset;
+        private byte[] payload;
+
+        private Cursor(long fromOffset) throws IOException {
+            this.offset = fromOffset;
+            this.endOffset = fromOffset;
+            if (Files.exists(journalPath)) {
+                channel = FileChannel.open(journalPath, StandardOpenOption.READ);
+                channel.position(fromOffset);
+                in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            } else {
+                channel = null;
+                in = null;
+            }
+        }
+
+        // Moves to the next valid record; false at the end of the file or at a torn or corrupt record
+        public boolean next() throws IOException {
+            payload = null;
+            if (in == null) {
+                return false;
+            }
+            int recordLength;
+            long checksum;
+            try {
+                recordLength = in.readInt();
+                checksum = in.readInt() & 0xFFFFFFFFL;
+            } catch (EOFException e) {
+                return false;
+            }
+            if (recordLength <= 0) {
+                return false;
+            }
+            byte[] data = new byte[recordLength];
+            try {
+                in.readFully(data);
+            } catch (EOFException e) {
+                return false;
+            }
+            if (crc(data) != checksum) {
+                return false;
+            }
+            payload = data;
+            offset = endOffset;
+            endOffset += 8 + recordLength;
+            return true;
+        }
+
+        // Offset of the current record
+        public long getOffset() {
+            return offset;
+        }
+
+        // Offset just past the last valid record read so far
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        // Decodes the current record, or null if it cannot be decoded
+        public Student getStudent() {
+            return (payload == null) ? null : decodePayload(payload);
+        }
+
+        @Override
+        public void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // Rewrites the journal so it holds only the given records, dropping superseded ones
+    public void compact(Collection<Student> live) throws IOException {
+        AtomicFiles.write(journalPath, out -> {
+            for (Student student : live) {
+                out.write(encodeRecord(student));
+            }
+        });
+    }
+
+    private byte[] encodeRecord(Student student) throws IOException {
+        byte[] encoded = codec.encode(student);
+        byte[] payload = new byte[encoded.length + 1];
+        payload[0] = OP_PUT;
+        System.arraycopy(encoded, 0, payload, 1, encoded.length);
+
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(payload.length + 8);
+        DataOutputStream out = new DataOutputStream(recordBytes);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc(payload));
+        out.write(payload);
+        out.flush();
+        return recordBytes.toByteArray();
+    }
+
+    private Student decodePayload(byte[] payload) {
+        try {
+            if (payload[0] == OP_PUT) {
+                return codec.decode(payload, 1, payload.length - 1);
+            }
+            if (payload[0] == OP_PUT_SERIALIZED) {
+                try (ObjectInputStream in = new ObjectInputStream(
+                        new ByteArrayInputStream(payload, 1, payload.length - 1))) {
+                    return (Student) in.readObject();
+                }
+            }
+            System.out.println("Skipping unknown journal record type: " + payload[0]);
+        } catch (IOException | ClassNotFoundException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    // A crash mid-append leaves a partial record at the end; cut it off so later appends stay readable
+    private void dropTornTail(long validLength) {
+        try {
+            if (Files.exists(journalPath) && Files.size(journalPath) > validLength) {
+                System.out.println("Dropping incomplete journal tail at offset " + validLength);
+                try (RandomAccessFile file = new RandomAccessFile(journalPath.toFile(), "rw")) {
+                    file.setLength(validLength);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,86 @@
+package handler;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import model.Student;
+
+// Single source of accounts for the views. Created once at startup and handed from view to view,
+// so logging out and back in never reloads users from disk.
+// Only the store's email index (normalized email -> record offset) is in memory at startup; a
+// student's full record is read the first time that student logs in and kept here afterwards. A
+// later login reuses that instance only while it is still the stored version; otherwise (an
+// autosave, or another planner instance saving the same student) the stored record replaces it.
+public class UserRepository {
+    private final UserStore store;
+    private final PersistenceService persistence;
+    private final Map<String, Student> loaded = new HashMap<>();
+
+    public UserRepository(UserStore store, PersistenceService persistence) {
+        this.store = store;
+        this.persistence = persistence;
+    }
+
+    // Returns the student if the email is registered and the password matches, otherwise null
+    public synchronized Student authenticate(String email, String password) {
+        Student student = find(email);
+        if (student == null || !student.getPassword().equals(password)) {
+            return null;
+        }
+        return student;
+    }
+
+    public synchronized Student find(String email) {
+        String key = UserStore.normalizeEmail(email);
+        Student student = loaded.get(key);
+        if (student != null) {
+            if (persistence.getPending(key) != null) {
+                persistence.flush(); // this session's unsaved edits are merged into the store first
+            }
+            Student stored = store.find(key);
+            if (stored == null || stored.getVersion() == student.getVersion()) {
+                return student;
+            }
+            student = stored;
+        } else {
+            student = store.find(key);
+        }
+        if (student != null) {
+            loaded.put(key, student);
+            persistence.track(student);
+        }
+        return student;
+    }
+
+    public boolean isRegistered(String email) {
+        return store.contains(email);
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    // Saves a new account right away so it survives even if the app is closed before logging in
+    public void register(Student student) throws IOException {
+        store.save(student);
+        persistence.track(student);
+        synchronized (this) {
+            loaded.put(UserStore.normalizeEmail(student.getEmail()), student);
+        }
+    }
+
+    // Queues a debounced background save of a logged-in student's edits
+    public void update(Student student) {
+        persistence.markDirty(student);
+    }
+
+    // Starts writing queued edits now instead of waiting for the debounce window (logout)
+    public void requestFlush() {
+        persistence.requestFlush();
+    }
+
+    // Writes everything still queued; called when the application exits
+    public void close() {
+        persistence.shutdown();
+    }
+}
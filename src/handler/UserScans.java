@@ -0,0 +1,166 @@
+package handler;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import model.ConflictAnalyzer;
+import model.Course;
+import model.MeetingTime;
+import model.Student;
+
+// Whole-population jobs over a user store. Each one streams students one at a time, so memory use
+// does not depend on how many accounts there are.
+public final class UserScans {
+
+    private UserScans() {
+    }
+
+    // Number of students whose active schedule has each section, keyed "CODE SECTION"
+    public static Map<String, Integer> countEnrollmentsBySection(UserStore store) {
+        Map<String, Integer> counts = new TreeMap<>();
+        try (Stream<Student> students = store.stream()) {
+            students.forEach(student -> {
+                for (Course course : student.getActiveSchedule()) {
+                    counts.merge(course.getCourseCode() + " " + course.getSection(), 1, Integer::sum);
+                }
+            });
+        }
+        return counts;
+    }
+
+    // Writes every saved schedule as CSV (one row per course) and returns the number of rows
+    public static int exportSchedules(UserStore store, Path target) throws IOException {
+        int[] rows = new int[1];
+        AtomicFiles.write(target, stream -> {
+            Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+            out.write("Email,Schedule,Active,Code,Section,Times,Days,Rooms\n");
+            try (Stream<Student> students = store.stream()) {
+                Iterator<Student> iterator = students.iterator();
+                while (iterator.hasNext()) {
+                    Student student = iterator.next();
+                    for (String name : student.getSavedScheduleNames()) {
+                        boolean active = name.equals(student.getActiveScheduleName());
+                        List<Course> courses = student.getSchedule(name);
+                        for (Course course : courses) {
+                            writeRow(out, student.getEmail(), name, String.valueOf(active), course.getCourseCode(),
+                                    course.getSection(), course.getTimes(), course.getDays(), course.getRooms());
+                            rows[0]++;
+                        }
+                    }
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        });
+        return rows[0];
+    }
+
+    // Writes one CSV row per pair of overlapping sections in any saved schedule of any student, found
+    // with ConflictAnalyzer, and returns the number of rows
+    public static int exportConflicts(UserStore store, Path target) throws IOException {
+        int[] rows = new int[1];
+        AtomicFiles.write(target, stream -> {
+            Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+            out.write("Email,Schedule,Code,Section,Conflicting Code,Conflicting Section,Days\n");
+            try (Stream<Student> students = store.stream()) {
+                Iterator<Student> iterator = students.iterator();
+                while (iterator.hasNext()) {
+                    Student student = iterator.next();
+                    for (String name : student.getSavedScheduleNames()) {
+                        for (ConflictAnalyzer.Conflict conflict : ConflictAnalyzer.findConflicts(student.getSchedule(name))) {
+                            Course first = conflict.getFirst();
+                            Course second = conflict.getSecond();
+                            writeRow(out, student.getEmail(), name, first.getCourseCode(), first.getSection(),
+                                    second.getCourseCode(), second.getSection(), dayNames(conflict.getDays()));
+                            rows[0]++;
+                        }
+                    }
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        });
+        return rows[0];
+    }
+
+    // java handler.UserScans [enrollments | schedules <file.csv> | conflicts <file.csv>]
+    // Run from the project directory, like the planner itself.
+    public static void main(String[] args) throws IOException {
+        if (!isValidCommand(args)) {
+            System.err.println("Usage: java handler.UserScans [enrollments | schedules <file.csv> | conflicts <file.csv>]");
+            System.exit(1);
+        }
+        UserStore store = FileManager.getUserStore();
+        String command = (args.length == 0) ? "enrollments" : args[0];
+        if (command.equals("schedules")) {
+            int rows = exportSchedules(store, Path.of(args[1]));
+            System.out.println("Exported " + rows + " schedule rows to " + args[1]);
+        } else if (command.equals("conflicts")) {
+            int rows = exportConflicts(store, Path.of(args[1]));
+            System.out.println("Exported " + rows + " conflicting pairs to " + args[1]);
+        } else {
+            for (Map.Entry<String, Integer> section : countEnrollmentsBySection(store).entrySet()) {
+                System.out.println(section.getKey() + ": " + section.getValue());
+            }
+        }
+        System.exit(0);
+    }
+
+    // A known command with exactly the arguments it takes; no arguments means enrollments
+    static boolean isValidCommand(String[] args) {
+        if (args.length == 0) {
+            return true;
+        }
+        switch (args[0]) {
+            case "enrollments":
+                return args.length == 1;
+            case "schedules":
+            case "conflicts":
+                return args.length == 2;
+            default:
+                return false;
+        }
+    }
+
+    // "Tue Thu"
+    private static String dayNames(int days) {
+        StringBuilder names = new StringBuilder();
+        for (int day = 0; day < MeetingTime.DAY_COUNT; day++) {
+            if ((days & (1 << day)) != 0) {
+                names.append(names.length() == 0 ? "" : " ").append(MeetingTime.dayName(day));
+            }
+        }
+        return names.toString();
+    }
+
+    private static void writeRow(Writer out, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(csvField(fields[i]));
+        }
+        out.write('\n');
+    }
+
+    // Quotes fields that contain commas, quotes or line breaks
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,46 @@
+package handler;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.stream.Stream;
+import model.Student;
+
+// Where student accounts are kept. Emails are compared after normalizeEmail(), so lookups ignore
+// case and surrounding spaces.
+// ShardedUserStore is the default and can be shared by several planner instances; MappedUserStore
+// (one instance at a time) can be picked with -Dplanner.userStore=mapped.
+public interface UserStore {
+
+    static String normalizeEmail(String email) {
+        return email.trim().toLowerCase();
+    }
+
+    boolean isEmpty();
+
+    boolean contains(String email);
+
+    int size();
+
+    // Reads a single student's latest record, or null if not registered
+    Student find(String email);
+
+    // Writes the student's current state and returns once it is on disk, overwriting whatever is
+    // stored. The student's version is set to one past the stored record's.
+    void save(Student student) throws IOException;
+
+    // Writes the student only if the stored record is still at expectedVersion (0 when the student
+    // has never been saved), setting the student's version to expectedVersion + 1. Returns false,
+    // without writing, if another session saved in the meantime.
+    boolean compareAndSave(Student student, long expectedVersion) throws IOException;
+
+    // One-time copy of users from the old users.txt store
+    void importUsers(Collection<Student> users) throws IOException;
+
+    // Yields every student's latest record one at a time, so whole-population jobs run in bounded
+    // memory. Close the stream when done (try-with-resources) to release open files.
+    // Students saved while a scan is running may be seen in their old or new state.
+    Stream<Student> stream();
+
+    // Makes the store's index durable so the next startup has nothing to catch up on
+    void checkpoint();
+}
@@ -0,0 +1,116 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Finds every pair of sections in a schedule whose meetings overlap, where CoursePlanner.hasConflict
+// only answers yes or no for one candidate.
+// Each meeting day of each section becomes an interval on one week-long timeline (day * 1440 +
+// minute), so sections on different days never touch. The intervals are sorted by start and swept
+// once with a heap of the ones still running, ordered by end: each new interval overlaps exactly
+// the intervals left in the heap. That is O(n log n) plus one step per conflict reported.
+public final class ConflictAnalyzer {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    // Two sections that meet at overlapping times on the given days
+    public static final class Conflict {
+        private final Course first;
+        private final Course second;
+        private final int days;
+
+        Conflict(Course first, Course second, int days) {
+            this.first = first;
+            this.second = second;
+            this.days = days;
+        }
+
+        public Course getFirst() { return first; }
+        public Course getSecond() { return second; }
+        public int getDays() { return days; }
+
+        // "CMSC 12 G and CMSC 21 B-1L overlap on Tue, Thu"
+        @Override
+        public String toString() {
+            StringBuilder names = new StringBuilder();
+            for (int day = 0; day < MeetingTime.DAY_COUNT; day++) {
+                if ((days & (1 << day)) != 0) {
+                    names.append(names.length() == 0 ? "" : ", ").append(MeetingTime.dayName(day));
+                }
+            }
+            return first.getCourseCode() + " " + first.getSection() + " and "
+                    + second.getCourseCode() + " " + second.getSection() + " overlap on " + names;
+        }
+    }
+
+    private ConflictAnalyzer() {
+    }
+
+    // Every overlapping pair once, ordered by when the later of the two starts in the week.
+    // In each pair, first is the one that comes first in courses.
+    public static List<Conflict> findConflicts(List<Course> courses) {
+        int intervals = 0;
+        for (Course course : courses) {
+            intervals += Integer.bitCount(course.getMeetingTime().getDays());
+        }
+
+        // Interval i: courseOf[i] meets from start[i] to end[i] in week minutes on day dayOf[i]
+        int[] courseOf = new int[intervals];
+        int[] dayOf = new int[intervals];
+        int[] start = new int[intervals];
+        int[] end = new int[intervals];
+        long[] order = new long[intervals]; // start << 32 | interval, so sorting needs no boxing
+        int n = 0;
+        for (int c = 0; c < courses.size(); c++) {
+            MeetingTime meeting = courses.get(c).getMeetingTime();
+            int days = meeting.getDays();
+            while (days != 0) {
+                int day = Integer.numberOfTrailingZeros(days);
+                courseOf[n] = c;
+                dayOf[n] = day;
+                start[n] = day * MINUTES_PER_DAY + meeting.getStartMinute();
+                end[n] = day * MINUTES_PER_DAY + meeting.getEndMinute();
+                order[n] = ((long) start[n] << 32) | n;
+                n++;
+                days &= days - 1;
+            }
+        }
+        Arrays.sort(order);
+
+        List<Conflict> conflicts = new ArrayList<>();
+        PriorityQueue<Integer> running = new PriorityQueue<>((a, b) -> Integer.compare(end[a], end[b]));
+        for (long entry : order) {
+            int i = (int) entry;
+            while (!running.isEmpty() && end[running.peek()] <= start[i]) {
+                running.poll();
+            }
+            for (int j : running) {
+                if (courseOf[i] == courseOf[j]) {
+                    continue;
+                }
+                Course a = courses.get(Math.min(courseOf[i], courseOf[j]));
+                Course b = courses.get(Math.max(courseOf[i], courseOf[j]));
+                // Two sections overlap on every day they share, so report the pair on the first one only
+                int shared = a.getMeetingTime().getDays() & b.getMeetingTime().getDays();
+                if (dayOf[i] == Integer.numberOfTrailingZeros(shared)) {
+                    conflicts.add(new Conflict(a, b, shared));
+                }
+            }
+            running.add(i);
+        }
+        return conflicts;
+    }
+
+    // The sections of schedule that candidate would clash with
+    public static List<Course> conflictsWith(List<Course> schedule, Course candidate) {
+        List<Course> clashes = new ArrayList<>();
+        MeetingTime meeting = candidate.getMeetingTime();
+        for (Course course : schedule) {
+            if (!course.equals(candidate) && course.getMeetingTime().overlaps(meeting)) {
+                clashes.add(course);
+            }
+        }
+        return clashes;
+    }
+}
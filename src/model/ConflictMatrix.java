@@ -0,0 +1,144 @@
+package model;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// For every offering in the catalog, the set of other offerings it clashes with, as a bitset
+// indexed by position in the offerings list. Checking a section against a schedule is then one
+// bit test per enrolled section (CoursePlanner.hasConflict(Course, ConflictMatrix)).
+// Offerings are matched by instance: the catalog reuses the Course of every unchanged row across
+// reloads, and a changed row is a new Course. A matrix never changes once built; refresh() gives
+// the matrix for a new offerings list, carrying over the rows of offerings that are still there.
+public final class ConflictMatrix {
+    private final List<Course> offerings;
+    private final Map<Course, Integer> index;
+    private final BitSet[] rows;
+
+    private ConflictMatrix(List<Course> offerings, Map<Course, Integer> index, BitSet[] rows) {
+        this.offerings = offerings;
+        this.index = index;
+        this.rows = rows;
+    }
+
+    // Every row computed from scratch, in parallel
+    public static ConflictMatrix build(List<Course> offerings) {
+        Map<Course, Integer> index = indexOf(offerings);
+        MeetingTime[] meetings = meetingsOf(offerings);
+        BitSet[] rows = new BitSet[meetings.length];
+        IntStream.range(0, meetings.length).parallel().forEach(i -> rows[i] = row(meetings, i));
+        return new ConflictMatrix(offerings, index, rows);
+    }
+
+    // The matrix for newOfferings. Rows of offerings in this matrix are remapped to the new positions;
+    // only sections that are new to the list are compared against the rest.
+    public ConflictMatrix refresh(List<Course> newOfferings) {
+        if (newOfferings == offerings) {
+            return this;
+        }
+        Map<Course, Integer> newIndex = indexOf(newOfferings);
+        MeetingTime[] meetings = meetingsOf(newOfferings);
+        int[] newPosition = new int[offerings.size()]; // old position -> new position, or -1
+        for (int i = 0; i < newPosition.length; i++) {
+            Integer position = newIndex.get(offerings.get(i));
+            newPosition[i] = (position == null) ? -1 : position;
+        }
+
+        // New sections, and any repeat of a section earlier in the list (identical CSV rows share a Course)
+        BitSet added = new BitSet(meetings.length);
+        for (int i = 0; i < meetings.length; i++) {
+            Course course = newOfferings.get(i);
+            if (!index.containsKey(course) || newIndex.get(course) != i) {
+                added.set(i);
+            }
+        }
+
+        BitSet[] newRows = new BitSet[meetings.length];
+        IntStream.range(0, meetings.length).parallel().forEach(i -> {
+            if (added.get(i)) {
+                newRows[i] = row(meetings, i);
+                return;
+            }
+            int old = index.get(newOfferings.get(i));
+            BitSet remapped = new BitSet(meetings.length);
+            BitSet oldRow = rows[old];
+            for (int j = oldRow.nextSetBit(0); j >= 0; j = oldRow.nextSetBit(j + 1)) {
+                if (newPosition[j] >= 0) {
+                    remapped.set(newPosition[j]);
+                }
+            }
+            newRows[i] = remapped;
+        });
+        // The carried-over rows still lack the new sections; a new section's row has them all
+        for (int i = added.nextSetBit(0); i >= 0; i = added.nextSetBit(i + 1)) {
+            BitSet row = newRows[i];
+            for (int j = row.nextSetBit(0); j >= 0; j = row.nextSetBit(j + 1)) {
+                newRows[j].set(i);
+            }
+        }
+        return new ConflictMatrix(newOfferings, newIndex, newRows);
+    }
+
+    public List<Course> getOfferings() {
+        return offerings;
+    }
+
+    // Position of the offering in getOfferings(), or -1 for a section that is not in the catalog
+    // (e.g. one kept in a saved schedule after the registrar dropped it)
+    public int indexOf(Course course) {
+        Integer position = index.get(course);
+        return (position == null) ? -1 : position;
+    }
+
+    // Whether candidate clashes with any other section of schedule. Sections missing from the catalog
+    // are compared by their meeting times.
+    public boolean hasConflict(List<Course> schedule, Course candidate) {
+        int position = indexOf(candidate);
+        MeetingTime meeting = candidate.getMeetingTime();
+        for (Course course : schedule) {
+            if (course.equals(candidate)) {
+                continue;
+            }
+            int other = indexOf(course);
+            boolean clash = (position >= 0 && other >= 0)
+                    ? rows[position].get(other)
+                    : course.getMeetingTime().overlaps(meeting);
+            if (clash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BitSet row(MeetingTime[] meetings, int i) {
+        BitSet row = new BitSet(meetings.length);
+        MeetingTime meeting = meetings[i];
+        if (!meeting.isScheduled()) {
+            return row;
+        }
+        for (int j = 0; j < meetings.length; j++) {
+            if (j != i && meeting.overlaps(meetings[j])) {
+                row.set(j);
+            }
+        }
+        return row;
+    }
+
+    private static Map<Course, Integer> indexOf(List<Course> offerings) {
+        Map<Course, Integer> index = new IdentityHashMap<>(offerings.size() * 2);
+        for (int i = 0; i < offerings.size(); i++) {
+            index.putIfAbsent(offerings.get(i), i);
+        }
+        return index;
+    }
+
+    private static MeetingTime[] meetingsOf(List<Course> offerings) {
+        MeetingTime[] meetings = new MeetingTime[offerings.size()];
+        for (int i = 0; i < meetings.length; i++) {
+            meetings[i] = offerings.get(i).getMeetingTime();
+        }
+        return meetings;
+    }
+}
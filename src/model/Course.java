@@ -1,16 +1,28 @@
 package model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.Objects;
 
-public class Course implements Serializable {
-    private String courseCode;
-    private String courseTitle;
-    private int units;
-    private String section;
-    private String times;
-    private String days;
-    private String rooms;
-    private String description;
+// An offering (or curriculum course) as an immutable value. Two Courses are equal when they have the
+// same code and section, the offering ID ("CMSC 12 G-1L"), so a schedule saved before the registrar
+// moved a section still matches it; hasSameDetails compares everything else too. Loaders hand out
+// the catalog's own instances where they can (see OfferingIndex.canonical).
+public final class Course implements Serializable {
+    // Pinned to the value computed before it was declared, so existing users.txt files still load
+    private static final long serialVersionUID = -6884202618063170505L;
+
+    private final String courseCode;
+    private final String courseTitle;
+    private final int units;
+    private final String section;
+    private final String times;
+    private final String days;
+    private final String rooms;
+    private final String description;
+    // Parsed from times and days; not serialized, rebuilt when a course is read back
+    private transient MeetingTime meetingTime;
     
 
     // Constructor for course offerings (with schedule)
@@ -24,6 +36,21 @@ public class Course implements Serializable {
         this.days = days;
         this.rooms = rooms;
         this.description = "";
+        this.meetingTime = MeetingTime.parse(times, days);
+    }
+
+    // Constructor for course offerings whose times and days were already parsed into meetingTime
+    public Course(String courseCode, String courseTitle, int units, String section,
+        String times, String days, String rooms, MeetingTime meetingTime) {
+        this.courseCode = courseCode;
+        this.courseTitle = courseTitle;
+        this.units = units;
+        this.section = section;
+        this.times = times;
+        this.days = days;
+        this.rooms = rooms;
+        this.description = "";
+        this.meetingTime = meetingTime;
     }
 
     // Constructor for program courses (without schedule)
@@ -36,6 +63,7 @@ public class Course implements Serializable {
         this.times = "TBA";
         this.days = "TBA";
         this.rooms = "TBA";
+        this.meetingTime = MeetingTime.NONE;
     }
 
     // Getters
@@ -47,6 +75,45 @@ public class Course implements Serializable {
     public String getDays() { return days; }
     public String getRooms() { return rooms; }
     public String getDescription() { return description; }
+    public MeetingTime getMeetingTime() { return meetingTime; }
+
+    // "CMSC 12 G-1L"; stable across catalog reloads
+    public String getOfferingId() {
+        return courseCode + " " + section;
+    }
+
+    // Same offering with the same title, units, times, days, rooms and description
+    public boolean hasSameDetails(Course other) {
+        return equals(other)
+                && units == other.units
+                && Objects.equals(courseTitle, other.courseTitle)
+                && Objects.equals(times, other.times)
+                && Objects.equals(days, other.days)
+                && Objects.equals(rooms, other.rooms)
+                && Objects.equals(description, other.description);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Course)) {
+            return false;
+        }
+        Course other = (Course) o;
+        return Objects.equals(courseCode, other.courseCode) && Objects.equals(section, other.section);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(courseCode) + Objects.hashCode(section);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        meetingTime = MeetingTime.parse(times, days);
+    }
 
     @Override
     public String toString() {
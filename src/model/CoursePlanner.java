@@ -1,19 +1,23 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import application.StudentDashboard;
 
 public class CoursePlanner {
 	private List<Course> enrolledCourses;
+	// Slots taken by enrolledCourses; kept in step by every method that changes the list
+	private final WeekOccupancy occupancy = new WeekOccupancy();
 	
 	
 	public CoursePlanner() {
 		this.enrolledCourses = new ArrayList<>();
 	}
 	
+    // Read-only; use addCourse, removeCourse or setEnrolledCourses so the occupancy stays in step
     public List<Course> getEnrolledCourses() {
-        return enrolledCourses;
+        return Collections.unmodifiableList(enrolledCourses);
     }
     
     public boolean addCourse(Course course) {
@@ -24,17 +28,21 @@ public class CoursePlanner {
             }
         }
         enrolledCourses.add(course);
+        occupancy.add(course.getMeetingTime());
         return true;
     }
     
+    // Removes the same section (Courses are equal by code and section, so a lab never takes its lecture with it)
     public boolean removeCourse(Course course) {
-        for (int i = 0; i<enrolledCourses.size();i++) {
-            if (enrolledCourses.get(i).getCourseCode().equals(course.getCourseCode())) {
-            	enrolledCourses.remove(i);
-                return true;
-            }
+        int index = enrolledCourses.indexOf(course);
+        if (index < 0) {
+            return false;
         }
-        return false;
+        enrolledCourses.remove(index);
+        // Sections may overlap (e.g. an old saved schedule), so clearing bits could free a slot
+        // another course still uses; rebuild instead
+        rebuildOccupancy();
+        return true;
     }
 
     public int getTotalUnits() {
@@ -47,107 +55,43 @@ public class CoursePlanner {
         return totalUnits;
     } 
 
+    // A few ANDs against the occupancy bitmap; intervals are compared only for off-slot times
     public boolean hasConflict(Course newCourse) {
-        // Iterate through all enrolled courses
-        for (Course c : enrolledCourses) {
-            // Skip courses with no fixed schedule (TBA = to be announced)
-            if (c.getDays().equalsIgnoreCase("TBA") || newCourse.getDays().equalsIgnoreCase("TBA")) {
-                continue;
-            }
-            
-            // Expand abbreviated day strings (e.g., "TTh" becomes ["Tue", "Thu"])
-            List<String> days1 = StudentDashboard.expandDays(c.getDays());
-            List<String> days2 = StudentDashboard.expandDays(newCourse.getDays());
-            
-            // Check if courses share any common day
-            boolean sameDay = false;
-            for (String day : days1) {
-                if (days2.contains(day)) {
-                    sameDay = true;
-                    break;
-                }
-            }
-            
-            // Skip if courses don't meet on the same day
-            if (!sameDay) {
-                continue;
-            }
-            
-            // Parse time ranges 
-            String[] time1 = c.getTimes().split("-");
-            String[] time2 = newCourse.getTimes().split("-");
-            
-            // Skip if time format is invalid
-            if (time1.length < 2 || time2.length < 2) {
-                continue;
-            }
-            
-            // Extract start and end hours for both courses
-            int startHour1 = parseHour(time1[0].trim());
-            int endHour1 = parseHour(time1[1].trim());
-            int startHour2 = parseHour(time2[0].trim());
-            int endHour2 = parseHour(time2[1].trim());
-            
-            // Skip if any hour is invalid
-            if (startHour1 == -1 || endHour1 == -1 || startHour2 == -1 || endHour2 == -1) {
-                continue;
-            }
-            
-            // Convert to 24-hour format for accurate comparison
-            int start1, end1, start2, end2;
-            
-            // Convert first course to 24-hour format
-            if (endHour1 < startHour1) {
-                // Case 1: End hour is smaller (crosses noon)
-                start1 = startHour1;
-                end1 = (endHour1 == 12) ? 12 : endHour1 + 12;
-            } else {
-                if (startHour1 >= 7) {
-                    // Case 2: Morning class (7 AM or later, before noon)
-                    start1 = startHour1;
-                    end1 = endHour1;
-                } else {
-                    // Case 3: Afternoon class (1-6 PM range)
-                    start1 = (startHour1 == 12) ? 12 : startHour1 + 12;
-                    end1 = (endHour1 == 12) ? 12 : endHour1 + 12;
-                }
-            }
-            
-            // Convert second course to 24-hour format using same logic
-            if (endHour2 < startHour2) {
-                start2 = startHour2;
-                end2 = (endHour2 == 12) ? 12 : endHour2 + 12;
-            } else {
-                if (startHour2 >= 7) {
-                    start2 = startHour2;
-                    end2 = endHour2;
-                } else {
-                    start2 = (startHour2 == 12) ? 12 : startHour2 + 12;
-                    end2 = (endHour2 == 12) ? 12 : endHour2 + 12;
-                }
-            }
-            
-            // Check for time overlap using interval intersection formula:
-
-            if (start1 < end2 && end1 > start2) {
+        MeetingTime meeting = newCourse.getMeetingTime();
+        // Courses with no fixed schedule (TBA = to be announced) never conflict
+        if (!meeting.isScheduled()) {
+            return false;
+        }
+        if (occupancy.isExact(meeting)) {
+            return occupancy.overlaps(meeting);
+        }
+        for (int i = 0; i < enrolledCourses.size(); i++) {
+            if (enrolledCourses.get(i).getMeetingTime().overlaps(meeting)) {
                 return true; // Conflict found
             }
         }
         return false; // No conflicts found
     }
 
-    // Helper function to get time to int 
-    private int parseHour(String timeStr) {
-        try {
-            String hourPart = timeStr.split(":")[0].trim();
-            return Integer.parseInt(hourPart);
-        } catch (Exception e) {
-            return -1;
+    // The same check through the catalog's conflict matrix: one bit test per enrolled section.
+    // A section the catalog no longer has (e.g. kept in an old saved schedule) is checked as above.
+    public boolean hasConflict(Course newCourse, ConflictMatrix matrix) {
+        if (matrix.indexOf(newCourse) < 0) {
+            return hasConflict(newCourse);
         }
+        return matrix.hasConflict(enrolledCourses, newCourse);
     }
 
     public void setEnrolledCourses(List<Course> courses) {
     	this.enrolledCourses.clear();
         this.enrolledCourses.addAll(courses);
+        rebuildOccupancy();
+    }
+
+    private void rebuildOccupancy() {
+        occupancy.clear();
+        for (Course c : enrolledCourses) {
+            occupancy.add(c.getMeetingTime());
+        }
     }
 }
\ No newline at end of file
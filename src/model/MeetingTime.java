@@ -0,0 +1,154 @@
+package model;
+
+// When a section meets, parsed once from its Times and Days strings: start and end as minutes after
+// midnight and the days as a bitmask (bit 0 = Monday ... bit 5 = Saturday). Conflict checks and
+// the calendar views read these numbers instead of splitting strings on every call.
+//
+// Times are written without AM/PM ("10:00-1:00", "4:00-7:00"); classes run from 7 AM to 7 PM, so:
+//   - an end hour below the start hour crosses noon ("10:00-1:00" is 10 AM to 1 PM)
+//   - otherwise a start hour from 7 to 12 is morning/noon, and anything earlier is afternoon
+public final class MeetingTime {
+    public static final int MONDAY = 1;
+    public static final int TUESDAY = 1 << 1;
+    public static final int WEDNESDAY = 1 << 2;
+    public static final int THURSDAY = 1 << 3;
+    public static final int FRIDAY = 1 << 4;
+    public static final int SATURDAY = 1 << 5;
+    public static final int DAY_COUNT = 6;
+    private static final String[] DAY_NAMES = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
+
+    // TBA sections, and anything whose times or days could not be read (or that ends before it starts)
+    public static final MeetingTime NONE = new MeetingTime(-1, -1, 0);
+
+    private final int startMinute;
+    private final int endMinute;
+    private final int days;
+    // Slots covered on each meeting day, for WeekOccupancy
+    private final long earlySlots;
+    private final long lateSlots;
+
+    private MeetingTime(int startMinute, int endMinute, int days) {
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+        this.days = days;
+        this.earlySlots = (days == 0) ? 0 : WeekOccupancy.slotBits(startMinute, endMinute, 0);
+        this.lateSlots = (days == 0) ? 0 : WeekOccupancy.slotBits(startMinute, endMinute, 1);
+    }
+
+    public static MeetingTime parse(String times, String days) {
+        if (times == null || days == null) {
+            return NONE;
+        }
+        int dayMask = parseDays(days.trim());
+        int dash = times.indexOf('-');
+        if (dayMask == 0 || dash < 0) {
+            return NONE;
+        }
+        int start = parseClock(times.substring(0, dash).trim());
+        int end = parseClock(times.substring(dash + 1).trim());
+        if (start < 0 || end < 0) {
+            return NONE;
+        }
+
+        int startHour = start / 60;
+        int endHour = end / 60;
+        if (endHour < startHour) {
+            end = toAfternoon(end);
+        } else if (startHour < 7) {
+            start = toAfternoon(start);
+            end = toAfternoon(end);
+        }
+        if (end <= start) {
+            return NONE;
+        }
+        return new MeetingTime(start, end, dayMask);
+    }
+
+    // A meeting time parse() returned earlier, rebuilt from its numbers (the catalog snapshot keeps
+    // them so a cold start parses no times or days)
+    public static MeetingTime of(int startMinute, int endMinute, int days) {
+        if (days == 0) {
+            return NONE;
+        }
+        if (days < 0 || days >= 1 << DAY_COUNT || startMinute < 0 || endMinute <= startMinute || endMinute > 24 * 60) {
+            throw new IllegalArgumentException("Not a meeting time: " + startMinute + "-" + endMinute + " on " + days);
+        }
+        return new MeetingTime(startMinute, endMinute, days);
+    }
+
+    public int getStartMinute() { return startMinute; }
+    public int getEndMinute() { return endMinute; }
+    public int getDays() { return days; }
+    public long getEarlySlots() { return earlySlots; }
+    public long getLateSlots() { return lateSlots; }
+
+    public boolean isScheduled() {
+        return days != 0;
+    }
+
+    // Starts and ends on 15-minute boundaries, so its slot bits match its interval exactly
+    public boolean isSlotAligned() {
+        return startMinute < endMinute
+                && startMinute % WeekOccupancy.SLOT_MINUTES == 0
+                && endMinute % WeekOccupancy.SLOT_MINUTES == 0;
+    }
+
+    // Day column as used by the calendars: 0 = Monday ... 5 = Saturday
+    public boolean meetsOn(int day) {
+        return (days & (1 << day)) != 0;
+    }
+
+    // Calendar header for a day column: "Mon" ... "Sat"
+    public static String dayName(int day) {
+        return DAY_NAMES[day];
+    }
+
+    // True if both meet on a common day at overlapping times
+    public boolean overlaps(MeetingTime other) {
+        return (days & other.days) != 0
+                && startMinute < other.endMinute
+                && endMinute > other.startMinute;
+    }
+
+    // "TTh", "WF" or a single day ("M", "Tues", "Thurs", ...); 0 for TBA or anything else
+    private static int parseDays(String days) {
+        if (days.equalsIgnoreCase("TTh")) {
+            return TUESDAY | THURSDAY;
+        } else if (days.equalsIgnoreCase("WF")) {
+            return WEDNESDAY | FRIDAY;
+        } else if (days.equalsIgnoreCase("M") || days.equalsIgnoreCase("Mon")) {
+            return MONDAY;
+        } else if (days.equalsIgnoreCase("T") || days.equalsIgnoreCase("Tue") || days.equalsIgnoreCase("Tues")) {
+            return TUESDAY;
+        } else if (days.equalsIgnoreCase("W") || days.equalsIgnoreCase("Wed")) {
+            return WEDNESDAY;
+        } else if (days.equalsIgnoreCase("Th") || days.equalsIgnoreCase("Thu") || days.equalsIgnoreCase("Thurs")) {
+            return THURSDAY;
+        } else if (days.equalsIgnoreCase("F") || days.equalsIgnoreCase("Fri")) {
+            return FRIDAY;
+        } else if (days.equalsIgnoreCase("S") || days.equalsIgnoreCase("Sat")) {
+            return SATURDAY;
+        }
+        return 0;
+    }
+
+    // "h", "h:mm" -> minutes after midnight as written (no AM/PM yet); -1 if unreadable
+    private static int parseClock(String clock) {
+        int colon = clock.indexOf(':');
+        try {
+            int hour = Integer.parseInt(colon < 0 ? clock : clock.substring(0, colon).trim());
+            int minute = (colon < 0) ? 0 : Integer.parseInt(clock.substring(colon + 1).trim());
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+                return -1;
+            }
+            return hour * 60 + minute;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // 12:xx stays noon; 1:00 to 11:59 move to PM
+    private static int toAfternoon(int minute) {
+        return (minute / 60 == 12) ? minute : minute + 12 * 60;
+    }
+}
@@ -20,6 +20,13 @@ public class Student implements Serializable {
     
     private Map<String, List<Course>> savedSchedules = new HashMap<>();
     private String activeScheduleName = "Default";
+
+    // Bumped by the user store on every save; lets concurrent sessions detect each other's writes
+    private long version;
+
+    // Saved sections the registrar has changed or dropped since, found when the record was read;
+    // shown to the student once and never saved
+    private transient List<String> scheduleNotices;
     
     public Student() {
         this.coursePlanner = new CoursePlanner();
@@ -37,6 +44,23 @@ public class Student implements Serializable {
         this.coursePlanner = new CoursePlanner();
     }
 
+    // Detached copy used by background saves, so later edits on the UI thread don't race the writer
+    public Student(Student other) {
+        this.firstName = other.firstName;
+        this.middleName = other.middleName;
+        this.lastName = other.lastName;
+        this.email = other.email;
+        this.password = other.password;
+        this.program = other.program;
+        this.profilePicturePath = other.profilePicturePath;
+        for (Map.Entry<String, List<Course>> entry : other.savedSchedules.entrySet()) {
+            this.savedSchedules.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        this.activeScheduleName = other.activeScheduleName;
+        this.version = other.version;
+        this.coursePlanner = new CoursePlanner();
+    }
+
     // Getters and setters
     public String getFirstName() { return firstName; }
     public void setFirstName(String firstName) { this.firstName = firstName; }
@@ -69,6 +93,11 @@ public class Student implements Serializable {
         }
     }
 
+    // Deletes a saved schedule; the active schedule name is left for the caller to change
+    public void removeSchedule(String name) {
+        savedSchedules.remove(name);
+    }
+
     public List<Course> getSchedule(String name) {
         return savedSchedules.getOrDefault(name, new ArrayList<>());
     }
@@ -106,4 +135,26 @@ public class Student implements Serializable {
     public void setProfilePicturePath(String profilePicturePath) {
         this.profilePicturePath = profilePicturePath;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public void addScheduleNotice(String notice) {
+        if (scheduleNotices == null) {
+            scheduleNotices = new ArrayList<>();
+        }
+        scheduleNotices.add(notice);
+    }
+
+    // The notices collected so far, clearing them
+    public List<String> takeScheduleNotices() {
+        List<String> notices = (scheduleNotices == null) ? new ArrayList<>() : scheduleNotices;
+        scheduleNotices = null;
+        return notices;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package model;
+
+import java.util.Arrays;
+
+// The 15-minute slots of the week (Monday to Saturday) a schedule occupies, one bit per slot:
+// two longs per day cover 96 slots, 0:00 to 24:00. A section's own slots are precomputed on its
+// MeetingTime, so checking it against the schedule is one AND per word of each day it meets.
+//
+// The bits are exact only for times on slot boundaries (all of the current catalog). A meeting
+// that starts or ends mid-slot is counted in unaligned, and callers compare intervals instead.
+public final class WeekOccupancy {
+    static final int SLOT_MINUTES = 15;
+    private static final int WORDS_PER_DAY = 2;
+
+    private final long[] words = new long[MeetingTime.DAY_COUNT * WORDS_PER_DAY];
+    private int unaligned;
+
+    public void add(MeetingTime meeting) {
+        if (!meeting.isScheduled()) {
+            return;
+        }
+        if (!meeting.isSlotAligned()) {
+            unaligned++;
+        }
+        int days = meeting.getDays();
+        while (days != 0) {
+            int day = Integer.numberOfTrailingZeros(days);
+            words[day * WORDS_PER_DAY] |= meeting.getEarlySlots();
+            words[day * WORDS_PER_DAY + 1] |= meeting.getLateSlots();
+            days &= days - 1;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0);
+        unaligned = 0;
+    }
+
+    // Whether overlaps() gives the same answer as comparing the intervals
+    public boolean isExact(MeetingTime meeting) {
+        return unaligned == 0 && meeting.isSlotAligned();
+    }
+
+    public boolean overlaps(MeetingTime meeting) {
+        int days = meeting.getDays();
+        while (days != 0) {
+            int day = Integer.numberOfTrailingZeros(days);
+            if ((words[day * WORDS_PER_DAY] & meeting.getEarlySlots()) != 0
+                    || (words[day * WORDS_PER_DAY + 1] & meeting.getLateSlots()) != 0) {
+                return true;
+            }
+            days &= days - 1;
+        }
+        return false;
+    }
+
+    // Bits of one day's word (0 = slots 0-63, 1 = slots 64-95) covered by [startMinute, endMinute)
+    static long slotBits(int startMinute, int endMinute, int word) {
+        int first = startMinute / SLOT_MINUTES - word * 64;
+        int last = (endMinute + SLOT_MINUTES - 1) / SLOT_MINUTES - word * 64; // exclusive
+        first = Math.max(first, 0);
+        last = Math.min(last, 64);
+        if (first >= last) {
+            return 0;
+        }
+        long upTo = (last == 64) ? -1L : (1L << last) - 1;
+        return upTo & (-1L << first);
+    }
+}
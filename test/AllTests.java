@@ -0,0 +1,49 @@
+import handler.CatalogSnapshotTest;
+import handler.CsvReaderTest;
+import handler.GroupCommitWriterTest;
+import handler.MappedUserStoreTest;
+import handler.ShardedUserStoreTest;
+import handler.StoreLocksTest;
+import handler.StudentCodecTest;
+import handler.StudentSyncTest;
+import handler.UserJournalTest;
+import handler.UserScansTest;
+import model.ConflictAnalyzerTest;
+import model.ConflictMatrixTest;
+import model.CoursePlannerTest;
+import model.MeetingTimeTest;
+
+// Runs every test under test/. The tests are plain classes with a main and use Java assertions, so
+// they need nothing beyond the JDK and the compiled application classes:
+//
+//   javac -d out/test -cp out/production $(find test -name '*.java')
+//   java -ea -cp out/production:out/test AllTests
+//
+// Each test class can also be run on its own the same way. Run from the project directory.
+public class AllTests {
+
+    public static void main(String[] args) throws Exception {
+        boolean assertionsEnabled = false;
+        assert assertionsEnabled = true;
+        if (!assertionsEnabled) {
+            throw new IllegalStateException("Run the tests with java -ea so the assertions are checked");
+        }
+
+        UserJournalTest.main(args);
+        ShardedUserStoreTest.main(args);
+        StudentCodecTest.main(args);
+        GroupCommitWriterTest.main(args);
+        MappedUserStoreTest.main(args);
+        UserScansTest.main(args);
+        StoreLocksTest.main(args);
+        StudentSyncTest.main(args);
+        CsvReaderTest.main(args);
+        CatalogSnapshotTest.main(args);
+        MeetingTimeTest.main(args);
+        CoursePlannerTest.main(args);
+        ConflictAnalyzerTest.main(args);
+        ConflictMatrixTest.main(args);
+        System.out.println("All tests passed.");
+        System.exit(0);
+    }
+}
@@ -0,0 +1,74 @@
+package handler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import model.Course;
+import model.MeetingTime;
+
+// Writing and reading back the binary catalog snapshot, meeting times included
+public class CatalogSnapshotTest {
+    private static final Course LECTURE = new Course("CMSC 12", "Foundations", 3, "G", "4:00-5:00", "WF", "LH");
+    private static final Course TBA = new Course("CMSC 190", "Special Problem", 3, "X", "TBA", "TBA", "TBA");
+    private static final Course PROGRAM = new Course("CMSC 12", "Foundations", 3, "Logic, sets and proofs");
+
+    public static void main(String[] args) throws Exception {
+        roundTripKeepsRowsAndMeetingTimes();
+        snapshotCanBeReplacedAfterReading();
+        damagedSnapshotIsIgnored();
+        System.out.println("CatalogSnapshotTest passed");
+    }
+
+    static void roundTripKeepsRowsAndMeetingTimes() throws Exception {
+        Path target = Files.createTempDirectory("catalog-snapshot-test").resolve("catalog.snapshot");
+        CatalogSnapshot.write(target, images());
+
+        List<CatalogSnapshot.FileImage> read = CatalogSnapshot.read(target);
+        assert read.size() == 3;
+        assert read.get(0).path.equals(Paths.get("offerings.csv"));
+        assert read.get(0).modified == 11 && read.get(0).size == 22;
+
+        Course lecture = (Course) read.get(0).value.get(0);
+        assert lecture.hasSameDetails(LECTURE);
+        MeetingTime time = lecture.getMeetingTime();
+        assert time.getStartMinute() == 16 * 60 && time.getEndMinute() == 17 * 60;
+        assert time.getDays() == (MeetingTime.WEDNESDAY | MeetingTime.FRIDAY);
+        assert time.getEarlySlots() == LECTURE.getMeetingTime().getEarlySlots();
+        assert time.getLateSlots() == LECTURE.getMeetingTime().getLateSlots();
+        assert !((Course) read.get(0).value.get(1)).getMeetingTime().isScheduled();
+
+        assert ((Course) read.get(1).value.get(0)).hasSameDetails(PROGRAM);
+        assert Arrays.equals((String[]) read.get(2).value.get(0), new String[] {"June 1", "Classes begin"});
+    }
+
+    static void snapshotCanBeReplacedAfterReading() throws Exception {
+        Path target = Files.createTempDirectory("catalog-snapshot-test").resolve("catalog.snapshot");
+        CatalogSnapshot.write(target, images());
+        assert CatalogSnapshot.read(target) != null;
+        // Nothing of the read holds on to the file
+        CatalogSnapshot.write(target, images());
+        Files.delete(target);
+        assert CatalogSnapshot.read(target) == null;
+    }
+
+    static void damagedSnapshotIsIgnored() throws Exception {
+        Path target = Files.createTempDirectory("catalog-snapshot-test").resolve("catalog.snapshot");
+        CatalogSnapshot.write(target, images());
+        byte[] data = Files.readAllBytes(target);
+        Files.write(target, Arrays.copyOf(data, data.length / 2));
+        assert CatalogSnapshot.read(target) == null;
+    }
+
+    static List<CatalogSnapshot.FileImage> images() {
+        return Arrays.asList(
+                new CatalogSnapshot.FileImage(Paths.get("offerings.csv"), 11, 22, CatalogSnapshot.OFFERINGS,
+                        Arrays.asList(LECTURE, TBA)),
+                new CatalogSnapshot.FileImage(Paths.get("program.csv"), 33, 44, CatalogSnapshot.PROGRAM,
+                        Collections.singletonList(PROGRAM)),
+                new CatalogSnapshot.FileImage(Paths.get("calendar.csv"), 55, 66, CatalogSnapshot.ROWS,
+                        Collections.singletonList(new String[] {"June 1", "Classes begin"})));
+    }
+}
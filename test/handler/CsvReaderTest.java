@@ -0,0 +1,80 @@
+package handler;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Tokenizing the quoting and line-ending cases the catalog files use
+public class CsvReaderTest {
+
+    public static void main(String[] args) throws Exception {
+        plainFieldsAndLineEndings();
+        quotedFieldsMayHoldCommasQuotesAndLineBreaks();
+        quoteInsideAnUnquotedFieldIsText();
+        emptyFieldsAndBlankLines();
+        recordsLongerThanTheBuffer();
+        System.out.println("CsvReaderTest passed");
+    }
+
+    static void plainFieldsAndLineEndings() throws Exception {
+        List<List<String>> records = readAll("a,b,c\nd,e,f\r\ng,h,i\rj,k,l");
+        assert records.equals(Arrays.asList(
+                Arrays.asList("a", "b", "c"),
+                Arrays.asList("d", "e", "f"),
+                Arrays.asList("g", "h", "i"),
+                Arrays.asList("j", "k", "l"))) : records;
+    }
+
+    static void quotedFieldsMayHoldCommasQuotesAndLineBreaks() throws Exception {
+        CsvReader reader = new CsvReader(new StringReader(
+                "CMSC 12,\"Foundations, Part 1\",\"He said \"\"hi\"\"\",\"two\nlines\"\nnext,row\n"));
+        List<String> fields = new ArrayList<>();
+        assert reader.readRecord(fields);
+        assert fields.equals(Arrays.asList("CMSC 12", "Foundations, Part 1", "He said \"hi\"", "two\nlines")) : fields;
+        assert reader.getLineNumber() == 1;
+        assert reader.readRecord(fields);
+        assert fields.equals(Arrays.asList("next", "row")) : fields;
+        assert reader.getLineNumber() == 3 : "the line break inside the quotes counts as a line";
+        assert !reader.readRecord(fields);
+    }
+
+    static void quoteInsideAnUnquotedFieldIsText() throws Exception {
+        List<List<String>> records = readAll("12\" ruler,\"quoted\"tail\n");
+        assert records.equals(Arrays.asList(Arrays.asList("12\" ruler", "quotedtail"))) : records;
+    }
+
+    static void emptyFieldsAndBlankLines() throws Exception {
+        List<List<String>> records = readAll("\n\na,,c,\n\r\n,\n\"\",x");
+        assert records.equals(Arrays.asList(
+                Arrays.asList("a", "", "c", ""),
+                Arrays.asList("", ""),
+                Arrays.asList("", "x"))) : records;
+    }
+
+    static void recordsLongerThanTheBuffer() throws Exception {
+        StringBuilder plain = new StringBuilder();
+        StringBuilder quoted = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            plain.append((char) ('a' + i % 26));
+            quoted.append((i % 1000 == 0) ? ',' : (char) ('a' + i % 26));
+        }
+        List<List<String>> records = readAll(plain + ",\"" + quoted + "\"\nend");
+        assert records.size() == 2;
+        assert records.get(0).get(0).equals(plain.toString());
+        assert records.get(0).get(1).equals(quoted.toString());
+        assert records.get(1).equals(Arrays.asList("end"));
+    }
+
+    static List<List<String>> readAll(String text) throws Exception {
+        List<List<String>> records = new ArrayList<>();
+        try (Reader in = new StringReader(text); CsvReader reader = new CsvReader(in)) {
+            List<String> fields = new ArrayList<>();
+            while (reader.readRecord(fields)) {
+                records.add(new ArrayList<>(fields));
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,90 @@
+package handler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Concurrent appends share a batch, land at the offsets they were told, and are all woken up even
+// when the batch fails
+public class GroupCommitWriterTest {
+    private static final int CALLERS = 8;
+
+    public static void main(String[] args) throws Exception {
+        concurrentAppendsGetTheirOwnOffsets();
+        failedBatchWakesEveryCaller();
+        System.out.println("GroupCommitWriterTest passed");
+    }
+
+    static void concurrentAppendsGetTheirOwnOffsets() throws Exception {
+        Path file = Files.createTempDirectory("group-commit-test").resolve("log");
+        GroupCommitWriter writer = new GroupCommitWriter(20);
+        ExecutorService callers = callers(CALLERS);
+        try {
+            List<Future<Long>> offsets = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                byte[] record = new byte[i + 1];
+                Arrays.fill(record, (byte) i);
+                offsets.add(callers.submit(() -> writer.append(file, record)));
+            }
+
+            for (Future<Long> offset : offsets) {
+                offset.get(5, TimeUnit.SECONDS);
+            }
+            byte[] data = Files.readAllBytes(file);
+            assert data.length == CALLERS * (CALLERS + 1) / 2;
+            for (int i = 0; i < CALLERS; i++) {
+                long offset = offsets.get(i).get();
+                for (int j = 0; j <= i; j++) {
+                    assert data[(int) offset + j] == i : "record " + i + " is not at the offset it was given";
+                }
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    static void failedBatchWakesEveryCaller() throws Exception {
+        Path file = Files.createTempDirectory("group-commit-test").resolve("log");
+        GroupCommitWriter writer = new GroupCommitWriter(50);
+        ExecutorService callers = callers(3);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            results.add(callers.submit(() -> writer.append(file, new byte[] {1})));
+            Thread.sleep(10); // the first caller leads; the others join its batch
+            results.add(callers.submit(() -> writer.append(file, new byte[] {2})));
+            // A null record makes the leader's write fail with an unchecked exception, not an IOException
+            results.add(callers.submit(() -> writer.append(file, null)));
+
+            for (Future<Long> result : results) {
+                try {
+                    result.get(5, TimeUnit.SECONDS);
+                    assert false : "an append in a failed batch must not succeed";
+                } catch (ExecutionException e) {
+                    assert e.getCause() instanceof IOException : e.getCause();
+                } catch (TimeoutException e) {
+                    throw new AssertionError("a caller was left waiting on a failed batch");
+                }
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    // Daemon threads, so a caller stuck in awaitCommit() cannot keep a failed test run alive
+    private static ExecutorService callers(int count) {
+        return Executors.newFixedThreadPool(count, task -> {
+            Thread thread = new Thread(task, "test-caller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package handler;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+import model.Student;
+
+// Saving into reused slots, growing the index, and reading past a record whose checksum fails
+public class MappedUserStoreTest {
+    private static final String ANA = "ana@up.edu.ph";
+
+    public static void main(String[] args) throws Exception {
+        overwritesReuseSlots();
+        indexGrowthKeepsEveryAccount();
+        staleVersionIsRejected();
+        corruptRecordReadsAsMissing();
+        secondInstanceIsRefused();
+        System.out.println("MappedUserStoreTest passed");
+    }
+
+    static void overwritesReuseSlots() throws Exception {
+        Path directory = Files.createTempDirectory("mapped-store-test");
+        MappedUserStore store = open(directory);
+        store.save(student(ANA, "v0"));
+        store.save(student("ben@up.edu.ph", "Ben"));
+        long size = Files.size(directory.resolve("records.dat"));
+
+        for (int i = 1; i <= 50; i++) {
+            store.save(student(" Ana@UP.edu.ph ", "v" + i));
+        }
+        assert Files.size(directory.resolve("records.dat")) == size : "freed slots must be reused";
+        Student ana = store.find(ANA);
+        assert ana.getProgram().equals("v50");
+        assert ana.getVersion() == 51;
+        assert store.find("ben@up.edu.ph").getProgram().equals("Ben");
+        assert store.size() == 2;
+    }
+
+    static void indexGrowthKeepsEveryAccount() throws Exception {
+        MappedUserStore store = open(Files.createTempDirectory("mapped-store-test"));
+        int count = 3000;
+        for (int i = 0; i < count; i++) {
+            store.save(student("student" + i + "@up.edu.ph", "P" + i));
+        }
+        assert store.size() == count;
+        for (int i = 0; i < count; i += 7) {
+            assert store.find("student" + i + "@up.edu.ph").getProgram().equals("P" + i);
+        }
+        assert !store.contains("student" + count + "@up.edu.ph");
+        try (Stream<Student> students = store.stream()) {
+            assert students.count() == count;
+        }
+    }
+
+    static void staleVersionIsRejected() throws Exception {
+        MappedUserStore store = open(Files.createTempDirectory("mapped-store-test"));
+        assert store.compareAndSave(student(ANA, "A"), 0);
+        assert !store.compareAndSave(student(ANA, "B"), 0) : "the account already exists at version 1";
+        assert store.compareAndSave(student(ANA, "C"), 1);
+        assert store.find(ANA).getProgram().equals("C");
+        assert store.find(ANA).getVersion() == 2;
+    }
+
+    static void corruptRecordReadsAsMissing() throws Exception {
+        Path directory = Files.createTempDirectory("mapped-store-test");
+        MappedUserStore store = open(directory);
+        store.save(student(ANA, "Ana")); // slot 0
+        store.save(student("ben@up.edu.ph", "Ben"));
+
+        // Flip a byte in the middle of the first record's data; the mapping sees the file's contents
+        try (FileChannel channel = FileChannel.open(directory.resolve("records.dat"), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, 40);
+            b.put(0, (byte) ~b.get(0)).rewind();
+            channel.write(b, 40);
+        }
+        assert store.find(ANA) == null;
+        assert store.find("ben@up.edu.ph").getProgram().equals("Ben");
+        try (Stream<Student> students = store.stream()) {
+            assert students.count() == 1 : "a scan skips the corrupt record";
+        }
+    }
+
+    static void secondInstanceIsRefused() throws Exception {
+        Path directory = Files.createTempDirectory("mapped-store-test");
+        open(directory);
+        try {
+            open(directory);
+            assert false : "only one instance may open the store";
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+    }
+
+    static MappedUserStore open(Path directory) {
+        return new MappedUserStore(directory, new StudentCodec(new ArrayList<>()));
+    }
+
+    static Student student(String email, String program) {
+        return new Student("First", null, "Last", email, "secret", program);
+    }
+}
@@ -0,0 +1,142 @@
+package handler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+import model.Student;
+
+// Saving to the bucket files, compacting a bucket once it is mostly dead records, and reopening the
+// directory after a checkpoint. Two store instances over one directory, as two planner instances on
+// one machine would open it, each catch up on what the other appended, including after the other
+// compacted a bucket.
+public class ShardedUserStoreTest {
+    private static final String ANA = "ana@up.edu.ph";
+
+    public static void main(String[] args) throws Exception {
+        compactionShrinksBucket();
+        instancesCatchUpOnEachOthersSaves();
+        otherInstanceRescansCompactedBucket();
+        staleVersionIsRejected();
+        reopenedStoreSeesEverything();
+        System.out.println("ShardedUserStoreTest passed");
+    }
+
+    static void compactionShrinksBucket() throws Exception {
+        Path directory = Files.createTempDirectory("sharded-store-test");
+        ShardedUserStore store = open(directory);
+        String neighbour = sameBucketAs(ANA);
+        Path bucket = directory.resolve(String.format("bucket-%02d.journal",
+                Math.floorMod(ANA.hashCode(), ShardedUserStore.BUCKET_COUNT)));
+
+        store.save(student(neighbour, "Neighbour"));
+        store.save(student(ANA, "v0"));
+        long oneRecord = Files.size(bucket) / 2;
+
+        int saves = 60;
+        for (int i = 1; i <= saves; i++) {
+            store.save(student(ANA, "v" + i));
+        }
+        assert Files.size(bucket) < oneRecord * (saves / 2) : "the bucket must have been compacted";
+        assert store.find(ANA).getProgram().equals("v" + saves);
+        assert store.find(neighbour).getProgram().equals("Neighbour");
+        assert store.size() == 2;
+    }
+
+    static void instancesCatchUpOnEachOthersSaves() throws Exception {
+        Path directory = Files.createTempDirectory("sharded-store-test");
+        ShardedUserStore first = open(directory);
+        ShardedUserStore second = open(directory);
+
+        first.save(student(ANA, "BS Computer Science"));
+        assert second.contains(ANA) : "the second instance must catch up on the first one's append";
+        Student seen = second.find(" Ana@UP.edu.ph ");
+        assert seen.getProgram().equals("BS Computer Science");
+        assert seen.getVersion() == 1;
+
+        seen.setProgram("MS Computer Science");
+        second.save(seen);
+        Student back = first.find(ANA);
+        assert back.getProgram().equals("MS Computer Science");
+        assert back.getVersion() == 2;
+        assert first.size() == 1 && second.size() == 1;
+    }
+
+    static void otherInstanceRescansCompactedBucket() throws Exception {
+        Path directory = Files.createTempDirectory("sharded-store-test");
+        ShardedUserStore first = open(directory);
+        ShardedUserStore second = open(directory);
+        String neighbour = sameBucketAs(ANA);
+
+        first.save(student(neighbour, "Neighbour"));
+        first.save(student(ANA, "v0"));
+        // The second instance indexes the bucket at its current offsets
+        assert second.find(ANA).getProgram().equals("v0");
+
+        int saves = 60;
+        for (int i = 1; i <= saves; i++) {
+            first.save(student(ANA, "v" + i));
+        }
+
+        // The first instance compacted the bucket, so offsets the second one had indexed moved; it
+        // must notice and rescan
+        assert second.find(ANA).getProgram().equals("v" + saves);
+        assert second.find(neighbour).getProgram().equals("Neighbour");
+        assert second.size() == 2;
+    }
+
+    static void staleVersionIsRejected() throws Exception {
+        Path directory = Files.createTempDirectory("sharded-store-test");
+        ShardedUserStore first = open(directory);
+        ShardedUserStore second = open(directory);
+
+        first.save(student(ANA, "A"));
+        Student mine = first.find(ANA);
+        Student theirs = second.find(ANA);
+        theirs.setProgram("B");
+        assert second.compareAndSave(theirs, 1);
+
+        mine.setProgram("C");
+        assert !first.compareAndSave(mine, 1) : "a save based on version 1 must lose to the one already at 2";
+        assert first.find(ANA).getProgram().equals("B");
+        assert first.compareAndSave(mine, 2);
+        assert second.find(ANA).getProgram().equals("C");
+    }
+
+    static void reopenedStoreSeesEverything() throws Exception {
+        Path directory = Files.createTempDirectory("sharded-store-test");
+        ShardedUserStore store = open(directory);
+        for (int i = 0; i < 200; i++) {
+            store.save(student("student" + i + "@up.edu.ph", "P" + i));
+        }
+        store.checkpoint();
+        store.save(student("student7@up.edu.ph", "after checkpoint"));
+
+        ShardedUserStore reopened = open(directory);
+        assert reopened.size() == 200;
+        assert reopened.find("student7@up.edu.ph").getProgram().equals("after checkpoint");
+        assert reopened.find("student199@up.edu.ph").getProgram().equals("P199");
+        try (Stream<Student> students = reopened.stream()) {
+            assert students.count() == 200;
+        }
+    }
+
+    static ShardedUserStore open(Path directory) {
+        return new ShardedUserStore(directory, new StudentCodec(new ArrayList<>()));
+    }
+
+    static Student student(String email, String program) {
+        return new Student("First", null, "Last", email, "secret", program);
+    }
+
+    // Another email that hashes to the same bucket
+    static String sameBucketAs(String email) {
+        int bucket = Math.floorMod(email.hashCode(), ShardedUserStore.BUCKET_COUNT);
+        for (int i = 0; ; i++) {
+            String other = "neighbour" + i + "@up.edu.ph";
+            if (Math.floorMod(other.hashCode(), ShardedUserStore.BUCKET_COUNT) == bucket) {
+                return other;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package handler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Stores opened on one lock file in the same process share its locks and wait for each other,
+// instead of failing the way a second FileLock on a held region does
+public class StoreLocksTest {
+
+    public static void main(String[] args) throws Exception {
+        sameFileSharesOneInstance();
+        exclusiveWaitsForOtherHolders();
+        System.out.println("StoreLocksTest passed");
+    }
+
+    static void sameFileSharesOneInstance() throws Exception {
+        Path directory = Files.createTempDirectory("store-locks-test");
+        StoreLocks locks = StoreLocks.forFile(directory.resolve("store.lock"), 4);
+        assert StoreLocks.forFile(directory.resolve("sub").resolve("..").resolve("store.lock"), 4) == locks;
+        assert StoreLocks.forFile(Files.createTempDirectory("store-locks-test").resolve("store.lock"), 4) != locks;
+    }
+
+    static void exclusiveWaitsForOtherHolders() throws Exception {
+        StoreLocks locks = StoreLocks.forFile(Files.createTempDirectory("store-locks-test").resolve("store.lock"), 4);
+        locks.lockShared(0);
+        locks.lockShared(0); // a second reader shares the region
+
+        AtomicBoolean writing = new AtomicBoolean();
+        CountDownLatch written = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            locks.lockExclusive(0);
+            writing.set(true);
+            locks.unlockExclusive(0);
+            written.countDown();
+        });
+        writer.setDaemon(true);
+        writer.start();
+
+        Thread.sleep(100);
+        assert !writing.get() : "an exclusive lock must wait for the readers";
+        locks.unlockShared(0);
+        Thread.sleep(50);
+        assert !writing.get() : "one reader still holds the region";
+        locks.unlockShared(0);
+        assert written.await(5, TimeUnit.SECONDS) : "the writer must get the region once the readers are done";
+
+        // Other regions are independent
+        locks.lockExclusive(1);
+        locks.lockShared(2);
+        locks.unlockShared(2);
+        locks.unlockExclusive(1);
+    }
+}
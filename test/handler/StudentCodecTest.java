@@ -0,0 +1,232 @@
+package handler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import model.Course;
+import model.Student;
+
+// Round trips through StudentCodec, including sections the registrar moved or dropped after the
+// record was saved, and records written in the older formats
+public class StudentCodecTest {
+    private static final Course LECTURE = new Course("CMSC 12", "Foundations of Computer Science", 3, "G",
+            "4:00-5:00", "WF", "EAA LH (D-206)");
+    private static final Course LAB = new Course("CMSC 12", "Foundations of Computer Science", 0, "G-1L",
+            "7:00-10:00", "Tues", "PhySci C-100");
+    private static final Course OTHER = new Course("CMSC 21", "Fundamentals of Programming", 3, "AB",
+            "10:00-11:30", "TTh", "ICS MH");
+
+    public static void main(String[] args) throws Exception {
+        roundTripKeepsEveryField();
+        unchangedSectionsShareTheCatalogInstance();
+        movedSectionFollowsTheCatalogWithNotice();
+        droppedSectionIsRemovedWithNotice();
+        courseNotFromCatalogIsKeptInline();
+        offeringsAreWrittenAsReferences();
+        decodesFormat2Records();
+        decodesFormat3Records();
+        rejectsUnknownVersion();
+        System.out.println("StudentCodecTest passed");
+    }
+
+    static void roundTripKeepsEveryField() throws Exception {
+        StudentCodec codec = new StudentCodec(catalog(LECTURE, LAB, OTHER));
+        Student student = new Student("Ana", "B", "Cruz", "ana@up.edu.ph", "secret", "BS Computer Science");
+        student.setProfilePicturePath("/tmp/ana.png");
+        student.setSchedule("Plan A", Arrays.asList(LECTURE, LAB));
+        student.setSchedule("Plan B", Arrays.asList(OTHER));
+        student.setActiveSchedule("Plan B");
+        student.setVersion(42);
+
+        Student read = decode(codec, codec.encode(student));
+        assert read.getFirstName().equals("Ana");
+        assert read.getMiddleName().equals("B");
+        assert read.getLastName().equals("Cruz");
+        assert read.getEmail().equals("ana@up.edu.ph");
+        assert read.getPassword().equals("secret");
+        assert read.getProgram().equals("BS Computer Science");
+        assert read.getProfilePicturePath().equals("/tmp/ana.png");
+        assert read.getActiveScheduleName().equals("Plan B");
+        assert read.getVersion() == 42;
+        assert read.getSavedScheduleNames().equals(student.getSavedScheduleNames());
+        assert read.getSchedule("Plan A").equals(Arrays.asList(LECTURE, LAB));
+        assert read.getSchedule("Plan B").equals(Arrays.asList(OTHER));
+        assert read.takeScheduleNotices().isEmpty();
+    }
+
+    static void unchangedSectionsShareTheCatalogInstance() throws Exception {
+        byte[] saved = new StudentCodec(catalog(LECTURE, LAB)).encode(studentWith(LECTURE, LAB));
+
+        // A reload parses new Course objects with the same details
+        Course lecture = copy(LECTURE);
+        Course lab = copy(LAB);
+        StudentCodec reloaded = new StudentCodec(catalog(lecture, lab));
+        List<Course> schedule = decode(reloaded, saved).getSchedule("Plan");
+        assert schedule.get(0) == lecture;
+        assert schedule.get(1) == lab;
+    }
+
+    static void movedSectionFollowsTheCatalogWithNotice() throws Exception {
+        byte[] saved = new StudentCodec(catalog(LECTURE, LAB)).encode(studentWith(LECTURE, LAB));
+
+        Course moved = new Course("CMSC 12", LECTURE.getCourseTitle(), 3, "G", "1:00-2:00", "WF", "EAA LH (D-206)");
+        Student read = decode(new StudentCodec(catalog(moved, LAB)), saved);
+        assert read.getSchedule("Plan").get(0) == moved;
+        assert read.getSchedule("Plan").get(1) == LAB;
+
+        List<String> notices = read.takeScheduleNotices();
+        assert notices.size() == 1 : notices;
+        assert notices.get(0).contains("CMSC 12 G") && notices.get(0).contains("now 1:00-2:00") : notices;
+        assert read.takeScheduleNotices().isEmpty() : "notices are handed out once";
+    }
+
+    static void droppedSectionIsRemovedWithNotice() throws Exception {
+        byte[] saved = new StudentCodec(catalog(LECTURE, LAB)).encode(studentWith(LECTURE, LAB));
+
+        Student read = decode(new StudentCodec(catalog(LAB)), saved);
+        assert read.getSchedule("Plan").equals(Arrays.asList(LAB));
+        List<String> notices = read.takeScheduleNotices();
+        assert notices.size() == 1 && notices.get(0).contains("no longer offered") : notices;
+    }
+
+    static void courseNotFromCatalogIsKeptInline() throws Exception {
+        Course custom = new Course("CMSC 12", LECTURE.getCourseTitle(), 3, "G", "8:00-9:00", "M", "Elsewhere");
+        StudentCodec codec = new StudentCodec(catalog(LECTURE));
+        Student read = decode(codec, codec.encode(studentWith(custom)));
+        assert read.getSchedule("Plan").get(0).hasSameDetails(custom);
+        assert read.takeScheduleNotices().isEmpty() : "a course that never matched the catalog is not a change";
+    }
+
+    static void offeringsAreWrittenAsReferences() throws Exception {
+        StudentCodec codec = new StudentCodec(catalog(LECTURE, LAB, OTHER));
+        int references = codec.encode(studentWith(LECTURE, LAB, OTHER)).length;
+        int inline = new StudentCodec(catalog()).encode(studentWith(LECTURE, LAB, OTHER)).length;
+        assert references < inline - 60 : references + " bytes with references, " + inline + " inline";
+    }
+
+    static void decodesFormat2Records() throws Exception {
+        Course custom = new Course("CMSC 99", "Special Topics", 3, "X", "8:00-9:00", "M", "Elsewhere");
+        byte[] saved = oldRecord(2, custom, LECTURE, LAB);
+
+        Course moved = new Course("CMSC 12", LECTURE.getCourseTitle(), 0, "G-1L", "1:00-4:00", "Tues", "PhySci C-100");
+        Student read = decode(new StudentCodec(catalog(LECTURE, moved)), saved);
+        assert read.getVersion() == 7;
+        List<Course> schedule = read.getSchedule("Plan");
+        assert schedule.get(0).hasSameDetails(custom);
+        assert schedule.get(1) == LECTURE;
+        assert schedule.get(2) == moved : "format 2 references resolve to the current section";
+        assert read.takeScheduleNotices().isEmpty() : "format 2 saved nothing to compare a section against";
+
+        read = decode(new StudentCodec(catalog(LAB)), saved);
+        assert read.getSchedule("Plan").equals(Arrays.asList(custom, LAB));
+        List<String> notices = read.takeScheduleNotices();
+        assert notices.size() == 1 && notices.get(0).contains("CMSC 12 G - no longer offered") : notices;
+    }
+
+    static void decodesFormat3Records() throws Exception {
+        byte[] saved = oldRecord(3, LECTURE, LAB);
+
+        Student read = decode(new StudentCodec(catalog(copy(LECTURE), LAB)), saved);
+        assert read.getVersion() == 7;
+        assert read.getSchedule("Plan").get(1) == LAB;
+        assert read.takeScheduleNotices().isEmpty();
+
+        // Format 3 saved every field, so a moved section keeps its saved details
+        Course moved = new Course("CMSC 12", LECTURE.getCourseTitle(), 3, "G", "1:00-2:00", "WF", "EAA LH (D-206)");
+        read = decode(new StudentCodec(catalog(moved, LAB)), saved);
+        assert read.getSchedule("Plan").get(0).hasSameDetails(LECTURE);
+        List<String> notices = read.takeScheduleNotices();
+        assert notices.size() == 1 && notices.get(0).contains("now 1:00-2:00") : notices;
+    }
+
+    static void rejectsUnknownVersion() throws Exception {
+        StudentCodec codec = new StudentCodec(catalog(LECTURE));
+        byte[] data = codec.encode(studentWith(LECTURE));
+        data[0] = (byte) (StudentCodec.VERSION + 1);
+        try {
+            codec.decode(data, 0, data.length);
+            assert false : "a newer format must be rejected";
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    static Student studentWith(Course... courses) {
+        Student student = new Student("Ana", null, "Cruz", "ana@up.edu.ph", "secret", "BS Computer Science");
+        student.setSchedule("Plan", Arrays.asList(courses));
+        student.setActiveSchedule("Plan");
+        return student;
+    }
+
+    static List<Course> catalog(Course... courses) {
+        return new ArrayList<>(Arrays.asList(courses));
+    }
+
+    static Course copy(Course course) {
+        return new Course(course.getCourseCode(), course.getCourseTitle(), course.getUnits(), course.getSection(),
+                course.getTimes(), course.getDays(), course.getRooms());
+    }
+
+    // A record for studentWith(courses) at record version 7, as the format 2 or format 3 writer laid
+    // it out. Format 2 wrote catalog sections (everything but the first course here) as code and
+    // section only; format 3 wrote every course with all of its fields.
+    static byte[] oldRecord(int format, Course... courses) {
+        List<String> strings = new ArrayList<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (String field : new String[] {"Ana", null, "Cruz", "ana@up.edu.ph", "secret", "BS Computer Science",
+                null, "Plan"}) {
+            StudentCodec.writeVarint(body, ref(strings, field));
+        }
+        StudentCodec.writeVarint(body, 1);
+        StudentCodec.writeVarint(body, ref(strings, "Plan"));
+        StudentCodec.writeVarint(body, courses.length);
+        for (int i = 0; i < courses.length; i++) {
+            Course course = courses[i];
+            boolean offering = format != 2 || i > 0;
+            StudentCodec.writeVarint(body, offering ? 1 : 2);
+            StudentCodec.writeVarint(body, ref(strings, course.getCourseCode()));
+            if (format == 2 && offering) {
+                StudentCodec.writeVarint(body, ref(strings, course.getSection()));
+                continue;
+            }
+            StudentCodec.writeVarint(body, ref(strings, course.getCourseTitle()));
+            StudentCodec.writeVarint(body, course.getUnits());
+            StudentCodec.writeVarint(body, ref(strings, course.getSection()));
+            StudentCodec.writeVarint(body, ref(strings, course.getTimes()));
+            StudentCodec.writeVarint(body, ref(strings, course.getDays()));
+            StudentCodec.writeVarint(body, ref(strings, course.getRooms()));
+            StudentCodec.writeVarint(body, ref(strings, course.getDescription()));
+        }
+        StudentCodec.writeVarLong(body, 7);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StudentCodec.writeVarint(out, format);
+        StudentCodec.writeVarint(out, strings.size());
+        for (String value : strings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            StudentCodec.writeVarint(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        out.write(body.toByteArray(), 0, body.size());
+        return out.toByteArray();
+    }
+
+    private static int ref(List<String> strings, String value) {
+        if (value == null) {
+            return 0;
+        }
+        int index = strings.indexOf(value);
+        if (index < 0) {
+            strings.add(value);
+            index = strings.size() - 1;
+        }
+        return index + 1;
+    }
+
+    private static Student decode(StudentCodec codec, byte[] data) throws Exception {
+        return codec.decode(data, 0, data.length);
+    }
+}
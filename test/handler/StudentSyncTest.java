@@ -0,0 +1,206 @@
+package handler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.Course;
+import model.Student;
+
+// Three-way merges of one session's edits onto what another session saved in the meantime, and
+// sessions of separate store instances saving one student at the same time
+public class StudentSyncTest {
+    private static final int SESSIONS = 6;
+    private static final int EDITS = 25;
+
+    private static final Course A = new Course("CMSC 12", "Foundations", 3, "G", "4:00-5:00", "WF", "LH");
+    private static final Course B = new Course("CMSC 21", "Programming", 3, "AB", "10:00-11:30", "TTh", "MH");
+    private static final Course C = new Course("CMSC 22", "Object-Oriented", 3, "UV", "1:00-2:00", "WF", "PC");
+
+    public static void main(String[] args) throws Exception {
+        profileEditsFromBothSessionsAreKept();
+        scheduleChangedOnlyByUsIsTaken();
+        scheduleChangedOnlyByThemIsKept();
+        scheduleChangedByBothKeepsTheirsAsConflict();
+        scheduleDeletedByUsIsRemoved();
+        activeScheduleFallsBackWhenDeleted();
+        movedSectionCountsAsAChange();
+        concurrentSessionsKeepEverySchedule();
+        System.out.println("StudentSyncTest passed");
+    }
+
+    static void profileEditsFromBothSessionsAreKept() {
+        Student base = base();
+        Student ours = new Student(base);
+        ours.setPassword("new password");
+        Student theirs = new Student(base);
+        theirs.setProgram("MS Computer Science");
+
+        Student merged = StudentSync.merge(base, ours, theirs);
+        assert merged.getPassword().equals("new password");
+        assert merged.getProgram().equals("MS Computer Science");
+    }
+
+    static void scheduleChangedOnlyByUsIsTaken() {
+        Student base = base();
+        Student ours = new Student(base);
+        ours.setSchedule("Plan", Arrays.asList(A, C));
+        Student theirs = new Student(base);
+
+        Student merged = StudentSync.merge(base, ours, theirs);
+        assert merged.getSchedule("Plan").equals(Arrays.asList(A, C));
+        assert !merged.getSavedScheduleNames().contains("Plan" + StudentSync.CONFLICT_SUFFIX);
+    }
+
+    static void scheduleChangedOnlyByThemIsKept() {
+        Student base = base();
+        Student ours = new Student(base);
+        Student theirs = new Student(base);
+        theirs.setSchedule("Plan", Arrays.asList(C));
+        theirs.setSchedule("Theirs", Arrays.asList(B));
+
+        Student merged = StudentSync.merge(base, ours, theirs);
+        assert merged.getSchedule("Plan").equals(Arrays.asList(C));
+        assert merged.getSchedule("Theirs").equals(Arrays.asList(B));
+    }
+
+    static void scheduleChangedByBothKeepsTheirsAsConflict() {
+        Student base = base();
+        Student ours = new Student(base);
+        ours.setSchedule("Plan", Arrays.asList(A, C));
+        Student theirs = new Student(base);
+        theirs.setSchedule("Plan", Arrays.asList(B, C));
+
+        Student merged = StudentSync.merge(base, ours, theirs);
+        assert merged.getSchedule("Plan").equals(Arrays.asList(A, C));
+        assert merged.getSchedule("Plan" + StudentSync.CONFLICT_SUFFIX).equals(Arrays.asList(B, C));
+    }
+
+    static void scheduleDeletedByUsIsRemoved() {
+        Student base = base();
+        base.setSchedule("Spare", Arrays.asList(B));
+        Student ours = new Student(base);
+        ours.removeSchedule("Spare");
+        Student theirs = new Student(base);
+        theirs.setSchedule("Plan", Arrays.asList(C));
+
+        Student merged = StudentSync.merge(base, ours, theirs);
+        assert !merged.getSavedScheduleNames().contains("Spare") : merged.getSavedScheduleNames();
+        assert merged.getSchedule("Plan").equals(Arrays.asList(C));
+        assert base.getSavedScheduleNames().contains("Spare") : "merge must not change its inputs";
+        assert theirs.getSavedScheduleNames().contains("Spare") : "merge must not change its inputs";
+    }
+
+    static void activeScheduleFallsBackWhenDeleted() {
+        Student base = base();
+        base.setSchedule("Spare", Arrays.asList(B));
+        base.setActiveSchedule("Spare");
+        Student ours = new Student(base);
+        ours.removeSchedule("Spare");
+        Student theirs = new Student(base);
+
+        Student merged = StudentSync.merge(base, ours, theirs);
+        assert merged.getSavedScheduleNames().contains(merged.getActiveScheduleName()) : merged.getActiveScheduleName();
+    }
+
+    static void movedSectionCountsAsAChange() {
+        // Equal to A (same code and section) but meeting at another time, so the schedule did change
+        Course moved = new Course("CMSC 12", "Foundations", 3, "G", "8:00-9:00", "M", "LH");
+        Student base = base();
+        Student ours = new Student(base);
+        ours.setSchedule("Plan", Arrays.asList(moved, B));
+        Student theirs = new Student(base);
+
+        List<Course> plan = StudentSync.merge(base, ours, theirs).getSchedule("Plan");
+        assert plan.get(0).hasSameDetails(moved) : "our moved section must not be mistaken for an unchanged one";
+    }
+
+    // Each thread is a planner instance of its own (store, autosave and repository) on one shared
+    // directory, and edits its own schedule of the same student
+    static void concurrentSessionsKeepEverySchedule() throws Exception {
+        Path directory = Files.createTempDirectory("student-sync-test");
+        AtomicInteger saves = new AtomicInteger();
+        new CountingStore(directory, saves).save(base());
+
+        List<Thread> sessions = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < SESSIONS; t++) {
+            String name = "Session " + t;
+            Thread session = new Thread(() -> {
+                UserStore store = new CountingStore(directory, saves);
+                UserRepository repository = new UserRepository(store, new PersistenceService(store, 1, 16));
+                Student student = repository.find("ana@up.edu.ph");
+                for (int edit = 1; edit <= EDITS; edit++) {
+                    student.setSchedule(name, courses(name, edit));
+                    repository.update(student);
+                    if (edit % 5 == 0) {
+                        repository.requestFlush();
+                    }
+                }
+                repository.close();
+            });
+            session.setUncaughtExceptionHandler((thread, e) -> {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            });
+            sessions.add(session);
+        }
+        for (Thread session : sessions) {
+            session.start();
+        }
+        for (Thread session : sessions) {
+            session.join();
+        }
+        assert failures.isEmpty() : failures;
+
+        Student stored = new CountingStore(directory, new AtomicInteger()).find("ana@up.edu.ph");
+        for (int t = 0; t < SESSIONS; t++) {
+            String name = "Session " + t;
+            assert stored.getSchedule(name).equals(courses(name, EDITS)) : name + ": " + stored.getSchedule(name);
+            assert !stored.getSavedScheduleNames().contains(name + StudentSync.CONFLICT_SUFFIX);
+        }
+        assert stored.getSchedule("Plan").equals(Arrays.asList(A, B));
+        assert stored.getVersion() == 1 + saves.get()
+                : "version " + stored.getVersion() + " after " + saves.get() + " saves since registering";
+    }
+
+    // The first count courses of a session's own list
+    static List<Course> courses(String session, int count) {
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            courses.add(new Course("CMSC " + (100 + i), "Course " + i, 3, session, "7:00-8:00", "M", "Room"));
+        }
+        return courses;
+    }
+
+    // Counts the compareAndSave() calls that wrote a record
+    static class CountingStore extends ShardedUserStore {
+        private final AtomicInteger saves;
+
+        CountingStore(Path directory, AtomicInteger saves) {
+            super(directory, new StudentCodec(new ArrayList<>()));
+            this.saves = saves;
+        }
+
+        @Override
+        public boolean compareAndSave(Student student, long expectedVersion) throws IOException {
+            boolean saved = super.compareAndSave(student, expectedVersion);
+            if (saved) {
+                saves.incrementAndGet();
+            }
+            return saved;
+        }
+    }
+
+    static Student base() {
+        Student student = new Student("Ana", null, "Cruz", "ana@up.edu.ph", "secret", "BS Computer Science");
+        student.setSchedule("Plan", Arrays.asList(A, B));
+        student.setActiveSchedule("Plan");
+        student.setVersion(3);
+        return student;
+    }
+}
@@ -0,0 +1,113 @@
+package handler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import model.Student;
+
+// Appending, replaying and recovering a journal after a crash left a torn record at its tail
+public class UserJournalTest {
+
+    public static void main(String[] args) throws Exception {
+        replayKeepsLatestRecordPerEmail();
+        readAtFindsRecordsByOffset();
+        tornTailIsIgnoredAndCutOff();
+        corruptRecordEndsTheScan();
+        compactKeepsOnlyLiveRecords();
+        System.out.println("UserJournalTest passed");
+    }
+
+    static void replayKeepsLatestRecordPerEmail() throws Exception {
+        UserJournal journal = newJournal();
+        journal.append(student("ana@up.edu.ph", "BS Computer Science"));
+        journal.append(student("ben@up.edu.ph", "MS Computer Science"));
+        journal.append(student("Ana@up.edu.ph", "PhD Computer Science"));
+
+        Map<String, Student> latest = journal.replay();
+        assert latest.keySet().equals(new LinkedHashSet<>(Arrays.asList("ana@up.edu.ph", "ben@up.edu.ph")))
+                : latest.keySet();
+        assert latest.get("ana@up.edu.ph").getProgram().equals("PhD Computer Science");
+        assert latest.get("ben@up.edu.ph").getProgram().equals("MS Computer Science");
+    }
+
+    static void readAtFindsRecordsByOffset() throws Exception {
+        UserJournal journal = newJournal();
+        long first = journal.append(student("ana@up.edu.ph", "A"));
+        long[] bulk = journal.appendAll(Arrays.asList(student("ben@up.edu.ph", "B"), student("cy@up.edu.ph", "C")));
+
+        assert first == 0;
+        assert journal.readAt(first).getProgram().equals("A");
+        assert journal.readAt(bulk[0]).getProgram().equals("B");
+        assert journal.readAt(bulk[1]).getProgram().equals("C");
+        assert journal.readAt(bulk[1] + 1) == null : "an offset inside a record is not a record";
+        assert journal.readAt(Files.size(journal.getPath())) == null;
+    }
+
+    static void tornTailIsIgnoredAndCutOff() throws Exception {
+        UserJournal journal = newJournal();
+        journal.append(student("ana@up.edu.ph", "A"));
+        long validEnd = Files.size(journal.getPath());
+
+        // A crash in the middle of the next append: a length and checksum, but only part of the payload
+        Files.write(journal.getPath(), new byte[] {0, 0, 0, 100, 1, 2, 3, 4, 2, 9, 9}, StandardOpenOption.APPEND);
+
+        List<String> visited = new ArrayList<>();
+        long end = journal.recoverFrom(0, (offset, student) -> visited.add(student.getEmail()));
+        assert visited.equals(Arrays.asList("ana@up.edu.ph")) : visited;
+        assert end == validEnd;
+        assert Files.size(journal.getPath()) == validEnd : "the torn tail must be truncated";
+
+        // Appends after recovery are reachable again
+        journal.append(student("ben@up.edu.ph", "B"));
+        assert journal.replay().get("ben@up.edu.ph").getProgram().equals("B");
+        assert journal.replay().size() == 2;
+    }
+
+    static void corruptRecordEndsTheScan() throws Exception {
+        UserJournal journal = newJournal();
+        journal.append(student("ana@up.edu.ph", "A"));
+        long second = journal.append(student("ben@up.edu.ph", "B"));
+        journal.append(student("cy@up.edu.ph", "C"));
+
+        // Flip a payload byte of the middle record so its checksum no longer matches
+        byte[] data = Files.readAllBytes(journal.getPath());
+        data[(int) second + 12] ^= 0x55;
+        Files.write(journal.getPath(), data);
+
+        Map<String, Student> latest = journal.replay();
+        assert latest.keySet().equals(Collections.singleton("ana@up.edu.ph")) : latest.keySet();
+        assert journal.scan(0, (offset, student) -> { }) == second;
+        assert journal.readAt(second) == null;
+    }
+
+    static void compactKeepsOnlyLiveRecords() throws Exception {
+        UserJournal journal = newJournal();
+        for (int i = 0; i < 10; i++) {
+            journal.append(student("ana@up.edu.ph", "A" + i));
+        }
+        journal.append(student("ben@up.edu.ph", "B"));
+        long before = Files.size(journal.getPath());
+
+        journal.compact(journal.replay().values());
+        assert Files.size(journal.getPath()) < before;
+        Map<String, Student> latest = journal.replay();
+        assert latest.size() == 2;
+        assert latest.get("ana@up.edu.ph").getProgram().equals("A9");
+        assert latest.get("ben@up.edu.ph").getProgram().equals("B");
+    }
+
+    static UserJournal newJournal() throws Exception {
+        Path directory = Files.createTempDirectory("journal-test");
+        return new UserJournal(directory.resolve("users.journal"), new StudentCodec(new ArrayList<>()));
+    }
+
+    static Student student(String email, String program) {
+        return new Student("First", null, "Last", email, "secret", program);
+    }
+}
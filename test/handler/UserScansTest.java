@@ -0,0 +1,87 @@
+package handler;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import model.Course;
+import model.Student;
+
+// Whole-store scans and the command line that runs them
+public class UserScansTest {
+    private static final Course LECTURE = new Course("CMSC 12", "Foundations", 3, "G", "4:00-5:00", "WF", "LH");
+    private static final Course LAB = new Course("CMSC 12", "Foundations", 0, "G-1L", "7:00-10:00", "Tues", "PC");
+    private static final Course OTHER = new Course("CMSC 21", "Programming", 3, "AB", "4:30-6:00", "WF", "Hall, 2F");
+
+    public static void main(String[] args) throws Exception {
+        commandLineIsChecked();
+        enrollmentsCountActiveSchedulesOnly();
+        schedulesExportOneRowPerCourse();
+        conflictsExportOneRowPerPair();
+        System.out.println("UserScansTest passed");
+    }
+
+    static void commandLineIsChecked() {
+        assert UserScans.isValidCommand(new String[0]);
+        assert UserScans.isValidCommand(new String[] {"enrollments"});
+        assert UserScans.isValidCommand(new String[] {"schedules", "out.csv"});
+        assert UserScans.isValidCommand(new String[] {"conflicts", "out.csv"});
+        assert !UserScans.isValidCommand(new String[] {"schedules"}) : "the export needs a file";
+        assert !UserScans.isValidCommand(new String[] {"conflicts"}) : "the export needs a file";
+        assert !UserScans.isValidCommand(new String[] {"enrolments"}) : "a typo must not run the default scan";
+        assert !UserScans.isValidCommand(new String[] {"enrollments", "out.csv"});
+    }
+
+    static void enrollmentsCountActiveSchedulesOnly() throws Exception {
+        UserStore store = storeWith(
+                student("ana@up.edu.ph", Arrays.asList(LECTURE, LAB), Arrays.asList(OTHER)),
+                student("ben@up.edu.ph", Arrays.asList(LECTURE), Arrays.asList(LAB)));
+        Map<String, Integer> counts = UserScans.countEnrollmentsBySection(store);
+        assert counts.size() == 2 : counts;
+        assert counts.get("CMSC 12 G") == 2;
+        assert counts.get("CMSC 12 G-1L") == 1;
+    }
+
+    static void schedulesExportOneRowPerCourse() throws Exception {
+        UserStore store = storeWith(student("ana@up.edu.ph", Arrays.asList(LECTURE, LAB), Arrays.asList(OTHER)));
+        Path target = Files.createTempDirectory("user-scans-test").resolve("schedules.csv");
+        assert UserScans.exportSchedules(store, target) == 3;
+        List<String> lines = Files.readAllLines(target, StandardCharsets.UTF_8);
+        assert lines.size() == 4 : lines;
+        assert lines.contains("ana@up.edu.ph,Plan,true,CMSC 12,G,4:00-5:00,WF,LH") : lines;
+        assert lines.contains("ana@up.edu.ph,Spare,false,CMSC 21,AB,4:30-6:00,WF,\"Hall, 2F\"") : lines;
+    }
+
+    static void conflictsExportOneRowPerPair() throws Exception {
+        // LECTURE (4:00-5:00 WF) and OTHER (4:30-6:00 WF) clash; the lab does not
+        UserStore store = storeWith(
+                student("ana@up.edu.ph", Arrays.asList(LECTURE, LAB, OTHER), Arrays.asList(LAB)),
+                student("ben@up.edu.ph", Arrays.asList(LECTURE, LAB), Arrays.asList(OTHER)));
+        Path target = Files.createTempDirectory("user-scans-test").resolve("conflicts.csv");
+        assert UserScans.exportConflicts(store, target) == 1;
+        List<String> lines = Files.readAllLines(target, StandardCharsets.UTF_8);
+        assert lines.size() == 2 : lines;
+        assert lines.get(1).equals("ana@up.edu.ph,Plan,CMSC 12,G,CMSC 21,AB,Wed Fri") : lines;
+    }
+
+    static UserStore storeWith(Student... students) throws Exception {
+        UserStore store = new ShardedUserStore(Files.createTempDirectory("user-scans-test"),
+                new StudentCodec(new ArrayList<>()));
+        for (Student student : students) {
+            store.save(student);
+        }
+        return store;
+    }
+
+    // Active schedule "Plan" and a second one, "Spare"
+    static Student student(String email, List<Course> plan, List<Course> spare) {
+        Student student = new Student("First", null, "Last", email, "secret", "BS Computer Science");
+        student.setSchedule("Plan", plan);
+        student.setSchedule("Spare", spare);
+        student.setActiveSchedule("Plan");
+        return student;
+    }
+}
@@ -0,0 +1,41 @@
+package model;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// The sweep must report every overlapping pair of a schedule exactly once, and no other pair
+public class ConflictAnalyzerTest {
+
+    public static void main(String[] args) {
+        analyzerFindsExactlyTheOverlappingPairs();
+        System.out.println("ConflictAnalyzerTest passed");
+    }
+
+    static void analyzerFindsExactlyTheOverlappingPairs() {
+        Random random = new Random(1);
+        for (int round = 0; round < 200; round++) {
+            List<Course> schedule = RandomSections.courses(random, 2 + random.nextInt(12), "S" + round);
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < schedule.size(); i++) {
+                for (int j = i + 1; j < schedule.size(); j++) {
+                    if (RandomSections.overlaps(schedule.get(i), schedule.get(j))) {
+                        expected.add(i + "-" + j);
+                    }
+                }
+            }
+
+            Set<String> found = new HashSet<>();
+            for (ConflictAnalyzer.Conflict conflict : ConflictAnalyzer.findConflicts(schedule)) {
+                int first = schedule.indexOf(conflict.getFirst());
+                int second = schedule.indexOf(conflict.getSecond());
+                assert first < second : "first must be the earlier course in the list";
+                assert found.add(first + "-" + second) : "pair reported twice: " + conflict;
+                assert conflict.getDays() == (conflict.getFirst().getMeetingTime().getDays()
+                        & conflict.getSecond().getMeetingTime().getDays());
+            }
+            assert found.equals(expected) : "round " + round + ": expected " + expected + " but found " + found;
+        }
+    }
+}
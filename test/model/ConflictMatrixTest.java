@@ -0,0 +1,95 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// The precomputed matrix must agree with comparing meeting times directly, after a refresh as well
+// as when built from scratch, and so must CoursePlanner's check through it
+public class ConflictMatrixTest {
+
+    public static void main(String[] args) {
+        matrixMatchesPairwiseCheck();
+        refreshedMatrixMatchesRebuiltOne();
+        plannerWithMatrixMatchesPairwiseCheck();
+        System.out.println("ConflictMatrixTest passed");
+    }
+
+    static void matrixMatchesPairwiseCheck() {
+        List<Course> offerings = RandomSections.courses(new Random(2), 300, "O");
+        ConflictMatrix matrix = ConflictMatrix.build(offerings);
+        for (int i = 0; i < offerings.size(); i++) {
+            assert matrix.indexOf(offerings.get(i)) == i;
+            for (int j = 0; j < offerings.size(); j++) {
+                if (i == j) {
+                    continue;
+                }
+                boolean clash = matrix.hasConflict(Collections.singletonList(offerings.get(j)), offerings.get(i));
+                assert clash == RandomSections.overlaps(offerings.get(i), offerings.get(j))
+                        : offerings.get(i) + " vs " + offerings.get(j);
+            }
+        }
+
+        // Sections not in the catalog fall back to comparing meeting times
+        Course dropped = new Course("CMSC 999", "Dropped", 3, "X", "10:00-11:30", "TTh", "Room");
+        assert matrix.indexOf(dropped) == -1;
+        for (Course offering : offerings) {
+            List<Course> schedule = Collections.singletonList(offering);
+            assert matrix.hasConflict(schedule, dropped) == RandomSections.overlaps(offering, dropped);
+        }
+    }
+
+    static void refreshedMatrixMatchesRebuiltOne() {
+        Random random = new Random(3);
+        List<Course> offerings = RandomSections.courses(random, 150, "O");
+        ConflictMatrix matrix = ConflictMatrix.build(offerings);
+        for (int round = 0; round < 30; round++) {
+            List<Course> next = new ArrayList<>(offerings);
+            for (int k = random.nextInt(5); k > 0 && !next.isEmpty(); k--) {
+                next.remove(random.nextInt(next.size()));
+            }
+            next.addAll(RandomSections.courses(random, random.nextInt(5), "R" + round));
+            if (random.nextBoolean()) {
+                Collections.shuffle(next, random);
+            }
+
+            matrix = matrix.refresh(next);
+            ConflictMatrix rebuilt = ConflictMatrix.build(next);
+            for (int i = 0; i < next.size(); i++) {
+                for (int j = 0; j < next.size(); j++) {
+                    List<Course> other = Collections.singletonList(next.get(j));
+                    assert matrix.hasConflict(other, next.get(i)) == rebuilt.hasConflict(other, next.get(i))
+                            : "round " + round + ": " + next.get(i) + " vs " + next.get(j);
+                }
+            }
+            offerings = next;
+        }
+    }
+
+    static void plannerWithMatrixMatchesPairwiseCheck() {
+        Random random = new Random(4);
+        List<Course> offerings = RandomSections.courses(random, 200, "O");
+        ConflictMatrix matrix = ConflictMatrix.build(offerings);
+        for (int round = 0; round < 2000; round++) {
+            List<Course> enrolled = new ArrayList<>();
+            for (int k = random.nextInt(7); k > 0; k--) {
+                enrolled.add(offerings.get(random.nextInt(offerings.size())));
+            }
+            Course candidate = (round % 5 == 0)
+                    ? RandomSections.courses(random, 1, "X" + round).get(0) // not in the catalog
+                    : offerings.get(random.nextInt(offerings.size()));
+            if (enrolled.contains(candidate)) {
+                continue;
+            }
+
+            boolean expected = false;
+            for (Course course : enrolled) {
+                expected |= RandomSections.overlaps(course, candidate);
+            }
+            CoursePlanner planner = new CoursePlanner();
+            planner.setEnrolledCourses(enrolled);
+            assert planner.hasConflict(candidate, matrix) == expected : candidate + " against " + enrolled;
+        }
+    }
+}
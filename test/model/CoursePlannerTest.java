@@ -0,0 +1,49 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// CoursePlanner's occupancy check must agree with comparing every pair of meeting times directly,
+// also after sections are removed
+public class CoursePlannerTest {
+
+    public static void main(String[] args) {
+        plannerMatchesPairwiseCheck();
+        System.out.println("CoursePlannerTest passed");
+    }
+
+    static void plannerMatchesPairwiseCheck() {
+        Random random = new Random(4);
+        List<Course> offerings = RandomSections.courses(random, 200, "O");
+        for (int round = 0; round < 2000; round++) {
+            List<Course> enrolled = new ArrayList<>();
+            for (int k = random.nextInt(7); k > 0; k--) {
+                enrolled.add(offerings.get(random.nextInt(offerings.size())));
+            }
+            Course candidate = offerings.get(random.nextInt(offerings.size()));
+            if (enrolled.contains(candidate)) {
+                continue;
+            }
+
+            boolean expected = false;
+            for (Course course : enrolled) {
+                expected |= RandomSections.overlaps(course, candidate);
+            }
+            CoursePlanner planner = new CoursePlanner();
+            planner.setEnrolledCourses(enrolled);
+            assert planner.hasConflict(candidate) == expected : candidate + " against " + enrolled;
+
+            // Removing a section must free only its own slots
+            if (!enrolled.isEmpty()) {
+                Course removed = enrolled.get(0);
+                planner.removeCourse(removed);
+                boolean withoutIt = false;
+                for (Course course : planner.getEnrolledCourses()) {
+                    withoutIt |= RandomSections.overlaps(course, candidate);
+                }
+                assert planner.hasConflict(candidate) == withoutIt;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package model;
+
+// Reading the catalog's Times and Days strings into minute ranges and a day mask
+public class MeetingTimeTest {
+
+    public static void main(String[] args) {
+        timesAreReadWithoutAmPm();
+        daysBecomeAMask();
+        unreadableTimesAreNotScheduled();
+        backToBackSectionsDoNotOverlap();
+        rebuiltFromNumbers();
+        System.out.println("MeetingTimeTest passed");
+    }
+
+    static void timesAreReadWithoutAmPm() {
+        MeetingTime morning = MeetingTime.parse("10:00-11:30", "TTh");
+        assert morning.getStartMinute() == 10 * 60 && morning.getEndMinute() == 11 * 60 + 30;
+        MeetingTime afternoon = MeetingTime.parse("1:00-4:00", "W");
+        assert afternoon.getStartMinute() == 13 * 60 && afternoon.getEndMinute() == 16 * 60;
+        MeetingTime acrossNoon = MeetingTime.parse("11:30-1:00", "WF");
+        assert acrossNoon.getStartMinute() == 11 * 60 + 30 && acrossNoon.getEndMinute() == 13 * 60;
+        MeetingTime early = MeetingTime.parse(" 7:00 - 10:00 ", "Tues");
+        assert early.getStartMinute() == 7 * 60 && early.getEndMinute() == 10 * 60;
+    }
+
+    static void daysBecomeAMask() {
+        assert MeetingTime.parse("10:00-11:30", "TTh").getDays() == (MeetingTime.TUESDAY | MeetingTime.THURSDAY);
+        assert MeetingTime.parse("10:00-11:30", "WF").getDays() == (MeetingTime.WEDNESDAY | MeetingTime.FRIDAY);
+        assert MeetingTime.parse("8:00-9:00", "M").getDays() == MeetingTime.MONDAY;
+        assert MeetingTime.parse("8:00-12:00", "S").getDays() == MeetingTime.SATURDAY;
+        assert MeetingTime.parse("8:00-9:00", "M").meetsOn(0);
+        assert !MeetingTime.parse("8:00-9:00", "M").meetsOn(1);
+    }
+
+    static void unreadableTimesAreNotScheduled() {
+        assert !MeetingTime.parse("TBA", "TBA").isScheduled();
+        assert !MeetingTime.parse("10:00-11:00", "TBA").isScheduled();
+        assert !MeetingTime.parse("10:00", "M").isScheduled();
+        assert !MeetingTime.parse(null, "M").isScheduled();
+        assert MeetingTime.parse("TBA", "TBA") == MeetingTime.NONE;
+    }
+
+    static void backToBackSectionsDoNotOverlap() {
+        assert !MeetingTime.parse("10:00-11:00", "M").overlaps(MeetingTime.parse("11:00-12:00", "M"));
+        assert MeetingTime.parse("10:00-11:01", "M").overlaps(MeetingTime.parse("11:00-12:00", "M"));
+        assert !MeetingTime.parse("10:00-11:30", "TTh").overlaps(MeetingTime.parse("10:00-11:30", "WF"));
+        assert !MeetingTime.NONE.overlaps(MeetingTime.parse("10:00-11:30", "WF"));
+    }
+
+    static void rebuiltFromNumbers() {
+        MeetingTime parsed = MeetingTime.parse("1:00-2:30", "TTh");
+        MeetingTime rebuilt = MeetingTime.of(parsed.getStartMinute(), parsed.getEndMinute(), parsed.getDays());
+        assert rebuilt.getEarlySlots() == parsed.getEarlySlots() && rebuilt.getLateSlots() == parsed.getLateSlots();
+        assert MeetingTime.of(-1, -1, 0) == MeetingTime.NONE;
+        try {
+            MeetingTime.of(600, 500, MeetingTime.MONDAY);
+            assert false : "a meeting time must end after it starts";
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Random catalog sections for the conflict tests, and the reference answer they are checked against
+final class RandomSections {
+    private static final String[] DAYS = {"M", "Tues", "W", "Th", "F", "S", "TTh", "WF", "TBA"};
+    // Minutes past the hour; 10, 20 and 50 are off the occupancy bitmap's 15-minute slots
+    private static final int[] MINUTES = {0, 0, 15, 30, 30, 45, 10, 20, 50};
+
+    private RandomSections() {
+    }
+
+    // Both meet on a common day at overlapping times, compared pair by pair
+    static boolean overlaps(Course a, Course b) {
+        MeetingTime x = a.getMeetingTime();
+        MeetingTime y = b.getMeetingTime();
+        if (!x.isScheduled() || !y.isScheduled() || (x.getDays() & y.getDays()) == 0) {
+            return false;
+        }
+        return x.getStartMinute() < y.getEndMinute() && y.getStartMinute() < x.getEndMinute();
+    }
+
+    // Sections between 7:00 and 19:00, a few of them TBA, with distinct code/section pairs
+    static List<Course> courses(Random random, int count, String prefix) {
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int start = (7 + random.nextInt(10)) * 60 + MINUTES[random.nextInt(MINUTES.length)];
+            int end = start + 30 + random.nextInt(6) * 30 + (random.nextBoolean() ? 0 : 5);
+            String days = DAYS[random.nextInt(DAYS.length)];
+            courses.add(new Course("CMSC " + prefix + i, "Course " + i, 3, "A",
+                    days.equals("TBA") ? "TBA" : clock(start) + "-" + clock(end), days, "Room"));
+        }
+        return courses;
+    }
+
+    // As written in the catalog: 12-hour clock without AM/PM ("1:30" is 13:30)
+    static String clock(int minute) {
+        int hour = minute / 60;
+        return ((hour > 12) ? hour - 12 : hour) + ":" + String.format("%02d", minute % 60);
+    }
+}